@@ -0,0 +1,93 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.common.IdentityMap;
+import nawaman.utils.common.LruCache;
+
+/**
+ * Benchmarks of the cache building blocks against the plain JDK alternatives.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CacheBenchmark {
+    
+    private static final Class<?>[] keys = {
+            String.class, Integer.class, Long.class, Double.class, Object.class, Class.class, Thread.class, Runnable.class,
+            CharSequence.class, Number.class, Comparable.class, Iterable.class, Cloneable.class, Boolean.class,
+            Character.class, Byte.class
+    };
+    
+    private final IdentityMap<Class<?>, String> identityMap = new IdentityMap<>();
+    
+    private final ConcurrentHashMap<Class<?>, String> concurrentHashMap = new ConcurrentHashMap<>();
+    
+    private final ClassMetadata<String> classMetadata = new ClassMetadata<>(Class::getName);
+    
+    private final LruCache<Class<?>, String> lruCache = new LruCache<>(keys.length);
+    
+    private int index;
+    
+    @Setup
+    public void setup() {
+        for (Class<?> key : keys) {
+            identityMap.putIfAbsent(key, key.getName());
+            concurrentHashMap.put(key, key.getName());
+            classMetadata.get(key);
+            lruCache.put(key, key.getName());
+        }
+    }
+    
+    private Class<?> nextKey() {
+        index = (index + 1) & (keys.length - 1);
+        return keys[index];
+    }
+    
+    @Benchmark
+    public String identityMap_get() {
+        return identityMap.get(nextKey());
+    }
+    
+    @Benchmark
+    public String concurrentHashMap_get() {
+        return concurrentHashMap.get(nextKey());
+    }
+    
+    @Benchmark
+    public String classMetadata_get() {
+        return classMetadata.get(nextKey());
+    }
+    
+    @Benchmark
+    public String lruCache_get() {
+        return lruCache.get(nextKey());
+    }
+    
+}
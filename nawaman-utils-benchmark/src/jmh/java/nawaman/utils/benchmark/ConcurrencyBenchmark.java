@@ -0,0 +1,75 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import nawaman.utils.reflection.UProxy;
+
+/**
+ * Benchmarks of the proxy operations with all the available cores.
+ * 
+ * Compare with the single-threaded results (for example, {@code -PjmhInclude=Concurrency} with {@code fork} and 
+ *   {@code threads} set in the {@code jmh} block) to see how each operation scales.
+ * The shared {@code Random} is the old hash source of the proxies -- kept as the baseline of a contention point.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(Threads.MAX)
+public class ConcurrencyBenchmark {
+    
+    public static interface Adder {
+        public default int add(int a, int b) {
+            return a + b;
+        }
+    }
+    
+    private final Adder adder = UProxy.createDefaultProxy(Adder.class);
+    
+    private final Random random = new Random();
+    
+    @Benchmark
+    public Object createDefaultProxy() {
+        return UProxy.createDefaultProxy(Adder.class);
+    }
+    
+    @Benchmark
+    public int invokeDefault() {
+        return adder.add(1, 2);
+    }
+    
+    @Benchmark
+    public boolean isDefaultInterface() {
+        return UProxy.isDefaultInterface(Adder.class);
+    }
+    
+    @Benchmark
+    public int sharedRandomHash() {
+        return Math.abs(random.nextInt() / 2);
+    }
+    
+}
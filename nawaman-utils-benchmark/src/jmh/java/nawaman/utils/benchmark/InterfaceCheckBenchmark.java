@@ -0,0 +1,85 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import nawaman.utils.reflection.UProxy;
+
+/**
+ * Benchmarks of the interface checks on deep interface hierarchies.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InterfaceCheckBenchmark {
+    
+    public static interface Level0 {
+        public String level0();
+        public default String name(String prefix) { return prefix + "0"; }
+    }
+    public static interface Level1 extends Level0 {
+        public default String level0() { return "0"; }
+        public String level1();
+    }
+    public static interface Level2 extends Level1 {
+        public default String level1() { return "1"; }
+        public String level2();
+        public String name(String prefix);
+    }
+    public static interface Level3 extends Level2 {
+        public default String level2() { return "2"; }
+        public String level3();
+    }
+    public static interface Level4 extends Level3 {
+        public default String level3() { return "3"; }
+        public default String level4() { return "4"; }
+    }
+    public static interface Side {
+        public default String side() { return "side"; }
+    }
+    public static interface Level5 extends Level4, Side {
+        public default String level5() { return "5"; }
+    }
+    public static interface Level6 extends Level5 {
+        public String level6();
+    }
+    
+    @Benchmark
+    public boolean isDefaultInterface_deep() {
+        return UProxy.isDefaultInterface(Level5.class);
+    }
+    
+    @Benchmark
+    public boolean isDefaultInterface_deepNonDefault() {
+        return UProxy.isDefaultInterface(Level6.class);
+    }
+    
+    @Benchmark
+    public Map<String, String> getNonDefaultMethods_deep() {
+        return UProxy.getNonDefaultMethods(Level6.class);
+    }
+    
+}
@@ -0,0 +1,143 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import nawaman.utils.reflection.UProxy;
+
+/**
+ * Benchmarks of the dynamic proxy creation and the default method invocation.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UProxyBenchmark {
+    
+    public static interface Greeter {
+        public default String greet(String name) {
+            return "Hello: " + name;
+        }
+        public default int add(int a, int b) {
+            return a + b;
+        }
+    }
+    
+    public static interface Named {
+        public default String name() {
+            return "Named";
+        }
+    }
+    
+    public static class GreeterClass implements Greeter {
+    }
+    
+    public static interface AddInvoker {
+        public int add(Greeter greeter, int a, int b);
+    }
+    
+    private Greeter  direct;
+    private Greeter  proxy;
+    private Object[] greetArgs;
+    private Object[] addArgs;
+    private Method   greetMethod;
+    private Method   addMethod;
+    
+    private AddInvoker addInvoker;
+    
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        direct      = new GreeterClass();
+        proxy       = UProxy.createDefaultProxy(Greeter.class);
+        greetArgs   = new Object[] { "world" };
+        addArgs     = new Object[] { 40, 2 };
+        greetMethod = Greeter.class.getMethod("greet", String.class);
+        addMethod   = Greeter.class.getMethod("add", int.class, int.class);
+        addInvoker  = UProxy.defaultInvoker(addMethod, AddInvoker.class);
+    }
+    
+    //== Creation ==
+    
+    @Benchmark
+    public Object createDefaultProxy() {
+        return UProxy.createDefaultProxy(Greeter.class);
+    }
+    
+    @Benchmark
+    public Object createDefaultProxy_additionalInterfaces() {
+        return UProxy.createDefaultProxy(Greeter.class, Named.class);
+    }
+    
+    //== Invocation through the proxy ==
+    
+    @Benchmark
+    public String invokeDirect() {
+        return direct.greet("world");
+    }
+    
+    @Benchmark
+    public String invokeProxy() {
+        return proxy.greet("world");
+    }
+    
+    @Benchmark
+    public int invokeDirect_primitive() {
+        return direct.add(40, 2);
+    }
+    
+    @Benchmark
+    public int invokeProxy_primitive() {
+        return proxy.add(40, 2);
+    }
+    
+    @Benchmark
+    public int invokeProxy_hashCode() {
+        return proxy.hashCode();
+    }
+    
+    @Benchmark
+    public String invokeProxy_toString() {
+        return proxy.toString();
+    }
+    
+    //== UProxy.invokeDefaultMethod on a plain object ==
+    
+    @Benchmark
+    public Object invokeDefaultMethod() throws Throwable {
+        return UProxy.invokeDefaultMethod(direct, greetMethod, greetArgs);
+    }
+    
+    @Benchmark
+    public Object invokeDefaultMethod_primitive() throws Throwable {
+        return UProxy.invokeDefaultMethod(direct, addMethod, addArgs);
+    }
+    
+    @Benchmark
+    public int defaultInvoker_primitive() {
+        return addInvoker.add(direct, 40, 2);
+    }
+    
+}
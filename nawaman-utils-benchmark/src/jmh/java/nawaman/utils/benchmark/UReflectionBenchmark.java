@@ -0,0 +1,116 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.benchmark;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import nawaman.utils.reflection.UReflection;
+
+/**
+ * Benchmarks of the reflection utilities.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UReflectionBenchmark {
+    
+    @Target({ ElementType.METHOD, ElementType.FIELD })
+    @Retention(RetentionPolicy.RUNTIME)
+    public static @interface Marker {
+    }
+    
+    @Target({ ElementType.METHOD, ElementType.FIELD })
+    @Retention(RetentionPolicy.RUNTIME)
+    public static @interface Other {
+    }
+    
+    public static class Config {
+        @Other @Marker
+        public static final String value = "42";
+        
+        public static String fortyTwo() {
+            return "42";
+        }
+    }
+    
+    private Field        field;
+    private Method       method;
+    private Annotation[] annotations;
+    
+    @Setup
+    public void setup() throws NoSuchFieldException, NoSuchMethodException {
+        field       = Config.class.getField("value");
+        method      = Config.class.getMethod("fortyTwo");
+        annotations = field.getAnnotations();
+    }
+    
+    @Benchmark
+    public boolean hasAnnotationWithName_found() {
+        return UReflection.hasAnnotationWithName(annotations, "Marker");
+    }
+    
+    @Benchmark
+    public boolean hasAnnotationWithName_notFound() {
+        return UReflection.hasAnnotationWithName(annotations, "NotThere");
+    }
+    
+    @Benchmark
+    public boolean hasAnnotationWithName_element_found() {
+        return UReflection.hasAnnotationWithName(field, "Marker");
+    }
+    
+    @Benchmark
+    public boolean hasAnnotationWithName_element_notFound() {
+        return UReflection.hasAnnotationWithName(field, "NotThere");
+    }
+    
+    @Benchmark
+    public Object getValueFromStaticFieldOrNull() {
+        return UReflection.getValueFromStaticFieldOrNull(Config.class, field);
+    }
+    
+    @Benchmark
+    public Object getValueFromStaticField_direct() {
+        return Config.value;
+    }
+    
+    @Benchmark
+    public Object invokeStaticMethodOrNull() {
+        return UReflection.invokeStaticMethodOrNull(Config.class, method);
+    }
+    
+    @Benchmark
+    public Object invokeStaticMethod_direct() {
+        return Config.fortyTwo();
+    }
+    
+}
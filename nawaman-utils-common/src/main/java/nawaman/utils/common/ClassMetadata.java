@@ -0,0 +1,69 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.common;
+
+import java.util.function.Function;
+
+import lombok.NonNull;
+
+/**
+ * Holder of metadata computed once per class -- backed by a {@link ClassValue} so the metadata does not keep 
+ *   the class (or its class loader) from being unloaded.
+ * 
+ * @param <V>  the metadata type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class ClassMetadata<V> {
+    
+    private final ClassValue<V> values;
+    
+    /**
+     * Constructs a holder that computes the metadata with the given function.
+     * 
+     * The function is called at most once per class unless the metadata of the class is {@link #remove(Class) removed}
+     *   -- concurrent calls may compute it more than once but only one result is kept.
+     * 
+     * @param function  the function to compute the metadata of a class.
+     */
+    public ClassMetadata(@NonNull Function<? super Class<?>, ? extends V> function) {
+        this.values = new ClassValue<V>() {
+            @Override
+            protected V computeValue(Class<?> type) {
+                return function.apply(type);
+            }
+        };
+    }
+    
+    /**
+     * Returns the metadata of the given class -- computes it on the first call.
+     * 
+     * @param type  the class.
+     * @return  the metadata.
+     */
+    public V get(@NonNull Class<?> type) {
+        return values.get(type);
+    }
+    
+    /**
+     * Remove the metadata of the given class so it will be computed again on the next {@link #get(Class)}.
+     * 
+     * @param type  the class.
+     */
+    public void remove(@NonNull Class<?> type) {
+        values.remove(type);
+    }
+    
+}
@@ -0,0 +1,178 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.common;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Lock-free open-addressing map keyed by identity -- for read-mostly lookups such as metadata keyed by 
+ *   {@code Class} or {@code Method} objects.
+ * 
+ * The entries are kept in an immutable table of interleaved keys and values with linear probing 
+ *   so a lookup is a volatile read and a few array reads with no locking, no hashing of the key other than 
+ *   {@link System#identityHashCode(Object)} and no allocation.
+ * An addition copies the table and swaps it in with a compare-and-set so additions are expensive 
+ *   -- this map is for keys that are added once and read many times.
+ * The entries can not be removed; null keys and values are not allowed.
+ * 
+ * @param <K>  the key type.
+ * @param <V>  the value type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class IdentityMap<K, V> {
+    
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<IdentityMap, Table> TABLE
+            = AtomicReferenceFieldUpdater.newUpdater(IdentityMap.class, Table.class, "table");
+    
+    private static final int INITIAL_CAPACITY = 8;
+    
+    /** The immutable table -- the keys at the even indexes followed by their values. */
+    private static final class Table {
+        
+        final Object[] entries;
+        final int      size;
+        
+        Table(Object[] entries, int size) {
+            this.entries = entries;
+            this.size    = size;
+        }
+        
+    }
+    
+    private volatile Table table = new Table(new Object[INITIAL_CAPACITY * 2], 0);
+    
+    /**
+     * Returns the value of the given key.
+     * 
+     * @param key  the key.
+     * @return  the value or {@code null} if there is none.
+     */
+    public V get(Object key) {
+        return lookup(table, key);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> V lookup(Table table, Object key) {
+        val entries = table.entries;
+        val mask    = entries.length - 2;
+        int index   = indexOf(key, mask);
+        while (true) {
+            val existing = entries[index];
+            if (existing == key)
+                return (V)entries[index + 1];
+            if (existing == null)
+                return null;
+            index = (index + 2) & mask;
+        }
+    }
+    
+    /**
+     * Add the value of the given key if the key does not have one.
+     * 
+     * @param key    the key.
+     * @param value  the value.
+     * @return  the existing value or {@code null} if the given value was added.
+     */
+    public V putIfAbsent(@NonNull K key, @NonNull V value) {
+        while (true) {
+            val current  = table;
+            val existing = IdentityMap.<V>lookup(current, key);
+            if (existing != null)
+                return existing;
+            
+            if (TABLE.compareAndSet(this, current, with(current, key, value)))
+                return null;
+        }
+    }
+    
+    /**
+     * Returns the value of the given key -- computes and adds it if the key does not have one.
+     * 
+     * The function may be called more than once when multiple threads add the same key at the same time;
+     *   only the first value is added and all the threads get it.
+     * 
+     * @param key       the key.
+     * @param function  the function to compute the value.
+     * @return  the value or {@code null} if the function returns {@code null}.
+     */
+    public V computeIfAbsent(@NonNull K key, @NonNull Function<? super K, ? extends V> function) {
+        val existing = get(key);
+        if (existing != null)
+            return existing;
+        
+        val value = function.apply(key);
+        if (value == null)
+            return null;
+        
+        val added = putIfAbsent(key, value);
+        return (added != null) ? added : value;
+    }
+    
+    /** @return  the number of the entries. */
+    public int size() {
+        return table.size;
+    }
+    
+    private static int indexOf(Object key, int mask) {
+        // Spread the bits as the identity hash codes are not well distributed in the low bits; keep it even.
+        val hash = System.identityHashCode(key) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) << 1) & mask;
+    }
+    
+    private static Table with(Table table, Object key, Object value) {
+        val size     = table.size + 1;
+        val capacity = table.entries.length / 2;
+        // Keep the load factor at most 1/2 so the probes are short.
+        val newCapacity = (size * 2 > capacity) ? capacity * 2 : capacity;
+        val entries     = new Object[newCapacity * 2];
+        val mask        = entries.length - 2;
+        val oldEntries  = table.entries;
+        for (int i = 0; i < oldEntries.length; i += 2) {
+            if (oldEntries[i] != null)
+                insert(entries, mask, oldEntries[i], oldEntries[i + 1]);
+        }
+        insert(entries, mask, key, value);
+        return new Table(entries, size);
+    }
+    
+    private static void insert(Object[] entries, int mask, Object key, Object value) {
+        int index = indexOf(key, mask);
+        while (entries[index] != null)
+            index = (index + 2) & mask;
+        entries[index]     = key;
+        entries[index + 1] = value;
+    }
+    
+    @Override
+    public String toString() {
+        val buffer  = new StringBuilder("{");
+        val entries = table.entries;
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i] == null)
+                continue;
+            if (buffer.length() > 1)
+                buffer.append(", ");
+            buffer.append(entries[i]).append("=").append(entries[i + 1]);
+        }
+        return buffer.append("}").toString();
+    }
+    
+}
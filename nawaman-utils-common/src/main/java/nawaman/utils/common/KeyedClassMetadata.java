@@ -0,0 +1,88 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Holder of metadata computed once per class and key -- such as the metadata of each method of a class.
+ * 
+ * The values of each class are kept in a map held by a {@link ClassMetadata} so they go away with the class;
+ *   the keys and the values should only refer to the class itself (or to classes that live at least as long)
+ *   or they will keep the other classes from being unloaded.
+ * A lookup of an existing value does not lock; a new value is computed at most once per class and key.
+ * Null keys and values are not allowed -- a null result of the function is not kept.
+ * 
+ * @param <K>  the key type.
+ * @param <V>  the value type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class KeyedClassMetadata<K, V> {
+    
+    private final ClassMetadata<ConcurrentHashMap<K, V>> values = new ClassMetadata<>(type -> new ConcurrentHashMap<>());
+    
+    private final BiFunction<? super Class<?>, ? super K, ? extends V> function;
+    
+    /**
+     * Constructs a holder that computes the metadata with the given function.
+     * 
+     * @param function  the function to compute the metadata of a class and a key.
+     */
+    public KeyedClassMetadata(@NonNull BiFunction<? super Class<?>, ? super K, ? extends V> function) {
+        this.function = function;
+    }
+    
+    /**
+     * Returns the metadata of the given class and key -- computes it on the first call.
+     * 
+     * @param type  the class.
+     * @param key   the key.
+     * @return  the metadata or {@code null} if the function returns {@code null}.
+     */
+    public V get(@NonNull Class<?> type, @NonNull K key) {
+        val map   = values.get(type);
+        val value = map.get(key);
+        if (value != null)
+            return value;
+        
+        return map.computeIfAbsent(key, __ -> function.apply(type, key));
+    }
+    
+    /**
+     * Returns the metadata of the given class and key if it was already computed.
+     * 
+     * @param type  the class.
+     * @param key   the key.
+     * @return  the metadata or {@code null} if there is none.
+     */
+    public V peek(@NonNull Class<?> type, @NonNull K key) {
+        return values.get(type).get(key);
+    }
+    
+    /**
+     * Remove the metadata of the given class (for all the keys) so it will be computed again.
+     * 
+     * @param type  the class.
+     */
+    public void remove(@NonNull Class<?> type) {
+        values.remove(type);
+    }
+    
+}
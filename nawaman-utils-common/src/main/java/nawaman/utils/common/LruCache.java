@@ -0,0 +1,295 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Bounded concurrent cache that evicts the least recently used entries.
+ * 
+ * The entries are held in a {@link ConcurrentHashMap} so a lookup does not block;
+ *   the recency order is a linked list guarded by a lock that a lookup only tries to take 
+ *   -- when the lock is contended, the recency update of the lookup is skipped so the order is approximate 
+ *   under contention (and exact otherwise).
+ * The eviction listener is called on the thread that adds the entry, after the lock is released.
+ * Null keys and values are not allowed.
+ * 
+ * @param <K>  the key type.
+ * @param <V>  the value type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class LruCache<K, V> {
+    
+    private static final class Node<K, V> {
+        
+        final K key;
+        final V value;
+        
+        // Guarded by the lock -- prev is null when the node is not in the list.
+        Node<K, V> prev;
+        Node<K, V> next;
+        
+        Node(K key, V value) {
+            this.key   = key;
+            this.value = value;
+        }
+        
+    }
+    
+    private final int maxSize;
+    
+    private final BiConsumer<? super K, ? super V> evictionListener;
+    
+    private final ConcurrentHashMap<K, Node<K, V>> nodes = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // The sentinel of the recency list -- head.next is the most recently used.
+    private final Node<K, V> head = new Node<>(null, null);
+    
+    /**
+     * Constructs a cache of the given maximum size.
+     * 
+     * @param maxSize  the maximum number of the entries.
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, null);
+    }
+    
+    /**
+     * Constructs a cache of the given maximum size that reports the evicted entries to the listener.
+     * 
+     * @param maxSize           the maximum number of the entries.
+     * @param evictionListener  the listener of the evicted entries -- or {@code null}.
+     */
+    public LruCache(int maxSize, BiConsumer<? super K, ? super V> evictionListener) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Positive maximum size is required: " + maxSize);
+        
+        this.maxSize          = maxSize;
+        this.evictionListener = evictionListener;
+        this.head.prev        = head;
+        this.head.next        = head;
+    }
+    
+    /** @return  the maximum number of the entries. */
+    public int maxSize() {
+        return maxSize;
+    }
+    
+    /** @return  the number of the entries. */
+    public int size() {
+        return nodes.size();
+    }
+    
+    /**
+     * Returns the value of the given key and mark it as the most recently used.
+     * 
+     * @param key  the key.
+     * @return  the value or {@code null} if there is none.
+     */
+    public V get(Object key) {
+        val node = nodes.get(key);
+        if (node == null)
+            return null;
+        
+        if (lock.tryLock()) {
+            try {
+                if (node.prev != null) {
+                    unlink(node);
+                    linkFirst(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+    
+    /**
+     * Add or replace the value of the given key -- evicts the least recently used entries if the cache is full.
+     * 
+     * @param key    the key.
+     * @param value  the value.
+     * @return  the replaced value or {@code null} if there was none.
+     */
+    public V put(@NonNull K key, @NonNull V value) {
+        val node = new Node<K, V>(key, value);
+        final Node<K, V> existing;
+        final List<Node<K, V>> evicted;
+        lock.lock();
+        try {
+            existing = nodes.put(key, node);
+            if (existing != null)
+                unlink(existing);
+            linkFirst(node);
+            evicted = evictOverflow();
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+        return (existing != null) ? existing.value : null;
+    }
+    
+    /**
+     * Add the value of the given key if the key does not have one.
+     * 
+     * @param key    the key.
+     * @param value  the value.
+     * @return  the existing value or {@code null} if the given value was added.
+     */
+    public V putIfAbsent(@NonNull K key, @NonNull V value) {
+        val node = new Node<K, V>(key, value);
+        final Node<K, V> existing;
+        final List<Node<K, V>> evicted;
+        lock.lock();
+        try {
+            existing = nodes.putIfAbsent(key, node);
+            if (existing != null)
+                return existing.value;
+            
+            linkFirst(node);
+            evicted = evictOverflow();
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+        return null;
+    }
+    
+    /**
+     * Returns the value of the given key -- computes and adds it if the key does not have one.
+     * 
+     * The function is called without holding any lock so it may be called more than once when multiple threads 
+     *   add the same key at the same time; only the first value is added and all the threads get it.
+     * 
+     * @param key       the key.
+     * @param function  the function to compute the value.
+     * @return  the value or {@code null} if the function returns {@code null}.
+     */
+    public V computeIfAbsent(@NonNull K key, @NonNull Function<? super K, ? extends V> function) {
+        val existing = get(key);
+        if (existing != null)
+            return existing;
+        
+        val value = function.apply(key);
+        if (value == null)
+            return null;
+        
+        val added = putIfAbsent(key, value);
+        return (added != null) ? added : value;
+    }
+    
+    /**
+     * Remove the entry of the given key -- the eviction listener is not called.
+     * 
+     * @param key  the key.
+     * @return  the removed value or {@code null} if there was none.
+     */
+    public V remove(Object key) {
+        lock.lock();
+        try {
+            val existing = nodes.remove(key);
+            if (existing == null)
+                return null;
+            
+            unlink(existing);
+            return existing.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** Remove all the entries -- the eviction listener is not called. */
+    public void clear() {
+        lock.lock();
+        try {
+            nodes.clear();
+            for (Node<K, V> node = head.next; node != head; ) {
+                val next = node.next;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            head.prev = head;
+            head.next = head;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void linkFirst(Node<K, V> node) {
+        node.prev      = head;
+        node.next      = head.next;
+        head.next.prev = node;
+        head.next      = node;
+    }
+    
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev      = null;
+        node.next      = null;
+    }
+    
+    private List<Node<K, V>> evictOverflow() {
+        List<Node<K, V>> evicted = null;
+        while (nodes.size() > maxSize) {
+            val eldest = head.prev;
+            nodes.remove(eldest.key, eldest);
+            unlink(eldest);
+            if (evictionListener != null) {
+                if (evicted == null)
+                    evicted = new ArrayList<>();
+                evicted.add(eldest);
+            }
+        }
+        return evicted;
+    }
+    
+    private void notifyEvicted(List<Node<K, V>> evicted) {
+        if (evicted == null)
+            return;
+        
+        for (Node<K, V> node : evicted)
+            evictionListener.accept(node.key, node.value);
+    }
+    
+    @Override
+    public String toString() {
+        val buffer = new StringBuilder("{");
+        lock.lock();
+        try {
+            for (Node<K, V> node = head.next; node != head; node = node.next) {
+                if (buffer.length() > 1)
+                    buffer.append(", ");
+                buffer.append(node.key).append("=").append(node.value);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return buffer.append("}").toString();
+    }
+    
+}
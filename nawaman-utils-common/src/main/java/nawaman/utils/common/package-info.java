@@ -0,0 +1,6 @@
+/**
+ * Building blocks shared by NawaMan's utilities -- such as the caches of the metadata keyed by classes and methods.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+package nawaman.utils.common;
\ No newline at end of file
@@ -0,0 +1,27 @@
+package nawaman.utils.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class ClassMetadataTest {
+    
+    @Test
+    public void testComputeOnce() {
+        val count    = new AtomicInteger();
+        val metadata = new ClassMetadata<String>(type -> type.getSimpleName() + "#" + count.incrementAndGet());
+        assertEquals("String#1", metadata.get(String.class));
+        assertSame(metadata.get(String.class), metadata.get(String.class));
+        assertEquals("Integer#2", metadata.get(Integer.class));
+        
+        metadata.remove(String.class);
+        assertEquals("String#3", metadata.get(String.class));
+    }
+    
+}
@@ -0,0 +1,86 @@
+package nawaman.utils.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class IdentityMapTest {
+    
+    @Test
+    public void testIdentity() {
+        val map    = new IdentityMap<String, Integer>();
+        val key    = new String("key");
+        val equals = new String("key");
+        assertNull(map.putIfAbsent(key, 1));
+        assertEquals(1, (int)map.get(key));
+        assertNull(map.get(equals));
+        
+        assertEquals(1, (int)map.putIfAbsent(key, 2));
+        assertEquals(1, (int)map.get(key));
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    public void testGrow() {
+        val map  = new IdentityMap<Object, Integer>();
+        val keys = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            val key = new Object();
+            keys.add(key);
+            map.putIfAbsent(key, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, (int)map.get(keys.get(i)));
+        assertNull(map.get(new Object()));
+    }
+    
+    @Test
+    public void testComputeIfAbsent() {
+        val map   = new IdentityMap<Class<?>, String>();
+        val count = new AtomicInteger();
+        assertEquals("String", map.computeIfAbsent(String.class, type -> { count.incrementAndGet(); return type.getSimpleName(); }));
+        assertEquals("String", map.computeIfAbsent(String.class, type -> { count.incrementAndGet(); return type.getSimpleName(); }));
+        assertEquals(1, count.get());
+        
+        assertNull(map.computeIfAbsent(Integer.class, type -> null));
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        val map  = new IdentityMap<Object, Object>();
+        val keys = new Object[500];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = new Object();
+        
+        val executor = Executors.newFixedThreadPool(8);
+        try {
+            val futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (Object key : keys) {
+                        val value = map.computeIfAbsent(key, __ -> new Object());
+                        assertSame(value, map.get(key));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(keys.length, map.size());
+    }
+    
+}
@@ -0,0 +1,44 @@
+package nawaman.utils.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class KeyedClassMetadataTest {
+    
+    @Test
+    public void testComputeOnce() {
+        val count    = new AtomicInteger();
+        val metadata = new KeyedClassMetadata<String, String>((type, key) -> type.getSimpleName() + "." + key + "#" + count.incrementAndGet());
+        assertNull(metadata.peek(String.class, "length"));
+        assertEquals("String.length#1", metadata.get(String.class, "length"));
+        assertSame(metadata.get(String.class, "length"), metadata.peek(String.class, "length"));
+        assertEquals("String.isEmpty#2", metadata.get(String.class,  "isEmpty"));
+        assertEquals("Integer.length#3", metadata.get(Integer.class, "length"));
+        
+        metadata.remove(String.class);
+        assertNull(metadata.peek(String.class, "length"));
+        assertEquals("String.length#4",  metadata.get(String.class,  "length"));
+        assertEquals("Integer.length#3", metadata.get(Integer.class, "length"));
+    }
+    
+    @Test
+    public void testNullIsNotKept() {
+        val count    = new AtomicInteger();
+        val metadata = new KeyedClassMetadata<String, String>((type, key) -> {
+            count.incrementAndGet();
+            return null;
+        });
+        assertNull(metadata.get(String.class, "none"));
+        assertNull(metadata.get(String.class, "none"));
+        assertEquals(2, count.get());
+    }
+    
+}
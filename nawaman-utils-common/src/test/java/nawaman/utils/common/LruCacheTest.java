@@ -0,0 +1,87 @@
+package nawaman.utils.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class LruCacheTest {
+    
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        val evicted = new ArrayList<String>();
+        val cache   = new LruCache<String, Integer>(2, (key, value) -> evicted.add(key + "=" + value));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+        
+        assertEquals("[b=2]",      evicted.toString());
+        assertEquals("{c=3, a=1}", cache.toString());
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.size());
+    }
+    
+    @Test
+    public void testReplaceAndRemove() {
+        val evicted = new ArrayList<String>();
+        val cache   = new LruCache<String, Integer>(2, (key, value) -> evicted.add(key));
+        assertNull(cache.put("a", 1));
+        assertEquals(1, (int)cache.put("a", 2));
+        assertEquals(2, (int)cache.putIfAbsent("a", 3));
+        assertEquals(2, (int)cache.remove("a"));
+        assertNull(cache.remove("a"));
+        
+        cache.put("b", 1);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals("{}", cache.toString());
+        assertTrue(evicted.isEmpty());
+    }
+    
+    @Test
+    public void testComputeIfAbsent() {
+        val cache = new LruCache<Integer, String>(3);
+        for (int i = 0; i < 10; i++)
+            assertEquals("#" + i, cache.computeIfAbsent(i, key -> "#" + key));
+        assertEquals("{9=#9, 8=#8, 7=#7}", cache.toString());
+        assertEquals("#9", cache.computeIfAbsent(9, key -> "other"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new LruCache<String, String>(0);
+    }
+    
+    @Test
+    public void testConcurrent() throws Exception {
+        val cache    = new LruCache<Integer, Integer>(64);
+        val executor = Executors.newFixedThreadPool(8);
+        try {
+            val futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                val seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        val key = (i * 31 + seed) % 100;
+                        assertEquals(key, (int)cache.computeIfAbsent(key, k -> k));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(64, cache.size());
+    }
+    
+}
@@ -0,0 +1,50 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of the resolution and linking of the default method of a method.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Name("nawaman.utils.DefaultMethodResolution")
+@Label("Default Method Resolution")
+@Category({ "NawaMan", "Proxy" })
+@Description("The default method of an interface method is resolved and linked.")
+@Threshold("0 ms")
+@StackTrace(false)
+public final class DefaultMethodResolutionEvent extends Event {
+    
+    /** The interface declaring the method. */
+    @Label("Interface")
+    public String interfaceName;
+    
+    /** The method. */
+    @Label("Method")
+    public String methodName;
+    
+    /** The interface declaring the resolved default method -- null if there is no default method. */
+    @Label("Default Interface")
+    public String defaultInterfaceName;
+    
+}
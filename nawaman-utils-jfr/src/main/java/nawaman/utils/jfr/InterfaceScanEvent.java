@@ -0,0 +1,46 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of a scan of an interface for its non-default methods -- only the slow ones by default.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Name("nawaman.utils.InterfaceScan")
+@Label("Interface Scan")
+@Category({ "NawaMan", "Proxy" })
+@Description("An interface and its super interfaces are scanned for non-default methods.")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class InterfaceScanEvent extends Event {
+    
+    /** The interface. */
+    @Label("Interface")
+    public String interfaceName;
+    
+    /** The number of non-default methods found. */
+    @Label("Non-Default Method Count")
+    public int nonDefaultMethodCount;
+    
+}
@@ -0,0 +1,121 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.jfr;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import nawaman.utils.reflection.ProxyTracer;
+
+/**
+ * Proxy tracer that records the proxy operations as JFR events.
+ * 
+ * This tracer is registered as a service so it is picked up automatically when this module is in the classpath.
+ * An event object is only created when the event is enabled in the running recordings.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class JfrProxyTracer implements ProxyTracer {
+    
+    private static final jdk.jfr.EventType proxyClassCreation      = jdk.jfr.EventType.getEventType(ProxyClassCreationEvent.class);
+    private static final jdk.jfr.EventType defaultMethodResolution = jdk.jfr.EventType.getEventType(DefaultMethodResolutionEvent.class);
+    private static final jdk.jfr.EventType interfaceScan           = jdk.jfr.EventType.getEventType(InterfaceScanEvent.class);
+    
+    @Override
+    public Object beginProxyClassCreation(Class<?>[] interfaces) {
+        if (!proxyClassCreation.isEnabled())
+            return null;
+        
+        ProxyClassCreationEvent event = new ProxyClassCreationEvent();
+        event.begin();
+        event.interfaceName  = interfaces[0].getName();
+        event.interfaceNames = Arrays.stream(interfaces).map(Class::getName).collect(Collectors.joining(", "));
+        return event;
+    }
+    
+    @Override
+    public void endProxyClassCreation(Object trace, Class<?> proxyClass) {
+        if (!(trace instanceof ProxyClassCreationEvent))
+            return;
+        
+        ProxyClassCreationEvent event = (ProxyClassCreationEvent)trace;
+        event.end();
+        if (event.shouldCommit()) {
+            event.proxyClassName = proxyClass.getName();
+            event.commit();
+        }
+    }
+    
+    @Override
+    public Object beginDefaultMethodResolution(Method method) {
+        if (!defaultMethodResolution.isEnabled())
+            return null;
+        
+        DefaultMethodResolutionEvent event = new DefaultMethodResolutionEvent();
+        event.begin();
+        event.interfaceName = method.getDeclaringClass().getName();
+        event.methodName    = method.getName();
+        return event;
+    }
+    
+    @Override
+    public void endDefaultMethodResolution(Object trace, Method defaultMethod) {
+        if (!(trace instanceof DefaultMethodResolutionEvent))
+            return;
+        
+        DefaultMethodResolutionEvent event = (DefaultMethodResolutionEvent)trace;
+        event.end();
+        if (event.shouldCommit()) {
+            event.defaultInterfaceName = (defaultMethod != null) ? defaultMethod.getDeclaringClass().getName() : null;
+            event.commit();
+        }
+    }
+    
+    @Override
+    public Object beginInterfaceScan(Class<?> theInterface) {
+        if (!interfaceScan.isEnabled())
+            return null;
+        
+        InterfaceScanEvent event = new InterfaceScanEvent();
+        event.begin();
+        event.interfaceName = theInterface.getName();
+        return event;
+    }
+    
+    @Override
+    public void endInterfaceScan(Object trace, int nonDefaultMethodCount) {
+        if (!(trace instanceof InterfaceScanEvent))
+            return;
+        
+        InterfaceScanEvent event = (InterfaceScanEvent)trace;
+        event.end();
+        if (event.shouldCommit()) {
+            event.nonDefaultMethodCount = nonDefaultMethodCount;
+            event.commit();
+        }
+    }
+    
+    @Override
+    public void notDefaultMethod(Method method) {
+        NotDefaultMethodEvent event = new NotDefaultMethodEvent();
+        if (event.isEnabled()) {
+            event.interfaceName = method.getDeclaringClass().getName();
+            event.methodName    = method.getName();
+            event.commit();
+        }
+    }
+    
+}
@@ -0,0 +1,50 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of the creation and linking of a proxy class.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Name("nawaman.utils.ProxyClassCreation")
+@Label("Proxy Class Creation")
+@Category({ "NawaMan", "Proxy" })
+@Description("A dynamic proxy class is created and its dispatch table is linked.")
+@Threshold("0 ms")
+@StackTrace(false)
+public final class ProxyClassCreationEvent extends Event {
+    
+    /** The main interface. */
+    @Label("Interface")
+    public String interfaceName;
+    
+    /** All the interfaces. */
+    @Label("Interfaces")
+    public String interfaceNames;
+    
+    /** The proxy class. */
+    @Label("Proxy Class")
+    public String proxyClassName;
+    
+}
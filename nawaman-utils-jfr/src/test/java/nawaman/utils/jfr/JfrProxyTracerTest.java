@@ -0,0 +1,63 @@
+package nawaman.utils.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nawaman.utils.reflection.ProxyTracer;
+import nawaman.utils.reflection.UProxy;
+
+@SuppressWarnings("javadoc")
+public class JfrProxyTracerTest {
+    
+    public static interface Recorded {
+        public default String name() {
+            return "recorded";
+        }
+    }
+    
+    @Test
+    public void testProxyClassCreationIsRecorded() throws Exception {
+        Path file = Files.createTempFile("proxy-tracer", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("nawaman.utils.ProxyClassCreation");
+                recording.start();
+                
+                Recorded recorded = UProxy.createDefaultProxy(Recorded.class);
+                assertEquals("recorded", recorded.name());
+                
+                recording.stop();
+                recording.dump(file);
+            }
+            
+            List<RecordedEvent> events
+                    = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("nawaman.utils.ProxyClassCreation"))
+                    .filter(event -> Recorded.class.getName().equals(event.getString("interfaceName")))
+                    .collect(Collectors.toList());
+            assertEquals(events.toString(), 1, events.size());
+            assertTrue(events.get(0).getString("proxyClassName").length() != 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Test
+    public void testRegistered() {
+        // The tracer is picked up from META-INF/services -- there is nothing to configure.
+        ProxyTracer tracer = ServiceLoader.load(ProxyTracer.class).iterator().next();
+        assertTrue(String.valueOf(tracer), tracer instanceof JfrProxyTracer);
+    }
+    
+}
@@ -0,0 +1,270 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import lombok.val;
+
+/**
+ * Annotation processor that generates the implementation class of each interface annotated with
+ *   {@code nawaman.utils.reflection.DefaultProxy}.
+ * 
+ * The generated class is named {@code <InterfaceBinaryName>_DefaultProxy} and is in the same package as the interface.
+ * It inherits all the default methods; {@code toString()}, {@code hashCode()} and {@code equals(Object)} are
+ *   redirected to {@code _toString()}, {@code _hashCode()} and {@code _equals(Object)} if the interface extends
+ *   {@code WithToStringHashCodeEquals}. Otherwise, {@code toString()} returns {@code "SimpleName@" + hashCode()}
+ *   -- just like the default proxy.
+ * An interface annotated with {@code nawaman.utils.reflection.Structural} is an error as the generated class does not
+ *   have the structural methods.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public class DefaultProxyProcessor extends AbstractProcessor {
+    
+    /** The name of the annotation this processor processes. */
+    public static final String DEFAULT_PROXY = "nawaman.utils.reflection.DefaultProxy";
+    
+    /** The name of the annotation for the structural toString, hashCode and equals -- not supported by the generated class. */
+    public static final String STRUCTURAL = "nawaman.utils.reflection.Structural";
+    
+    /** The name of the interface for the custom toString, hashCode and equals. */
+    public static final String WITH_TO_STRING_HASH_CODE_EQUALS = "nawaman.utils.reflection.WithToStringHashCodeEquals";
+    
+    /** The suffix of the generated class name. */
+    public static final String GENERATED_SUFFIX = "_DefaultProxy";
+    
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(DEFAULT_PROXY);
+    }
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        val annotation = processingEnv.getElementUtils().getTypeElement(DEFAULT_PROXY);
+        if (annotation == null)
+            return false;
+        
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@DefaultProxy is only allowed on an interface: " + element);
+                continue;
+            }
+            
+            val theInterface = (TypeElement)element;
+            if (isPrivate(theInterface)) {
+                error(element, "@DefaultProxy interface must not be private: " + theInterface);
+                continue;
+            }
+            
+            if (isAnnotatedWith(theInterface, STRUCTURAL)) {
+                error(element, "@DefaultProxy can not be used with @Structural: " + theInterface);
+                continue;
+            }
+            
+            val abstractMethods = abstractMethodsOf(theInterface);
+            if (!abstractMethods.isEmpty()) {
+                error(element, "Default interface is required: " + theInterface + " -- abstract methods: " + abstractMethods);
+                continue;
+            }
+            
+            try {
+                generate(theInterface);
+            } catch (IOException e) {
+                error(element, "Unable to generate the default proxy of " + theInterface + ": " + e);
+            }
+        }
+        return true;
+    }
+    
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+    
+    private static boolean isPrivate(TypeElement theInterface) {
+        for (Element element = theInterface; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE))
+                return true;
+        }
+        return false;
+    }
+    
+    private static boolean isAnnotatedWith(TypeElement theInterface, String annotationName) {
+        for (AnnotationMirror annotation : theInterface.getAnnotationMirrors()) {
+            val annotationType = (TypeElement)annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName))
+                return true;
+        }
+        return false;
+    }
+    
+    private List<ExecutableElement> abstractMethodsOf(TypeElement theInterface) {
+        val elements = processingEnv.getElementUtils();
+        val methods  = ElementFilter.methodsIn(elements.getAllMembers(theInterface));
+        val abstractMethods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : methods) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT))
+                continue;
+            if (isObjectMethod(method))
+                continue;
+            if (isImplemented(method, methods, theInterface))
+                continue;
+            abstractMethods.add(method);
+        }
+        return abstractMethods;
+    }
+    
+    private boolean isImplemented(ExecutableElement method, List<ExecutableElement> methods, TypeElement theInterface) {
+        val elements = processingEnv.getElementUtils();
+        for (ExecutableElement other : methods) {
+            if (other.getModifiers().contains(Modifier.DEFAULT) && elements.overrides(other, method, theInterface))
+                return true;
+        }
+        return false;
+    }
+    
+    private static boolean isObjectMethod(ExecutableElement method) {
+        val name   = method.getSimpleName().toString();
+        val params = method.getParameters();
+        if ("toString".equals(name) || "hashCode".equals(name))
+            return params.isEmpty();
+        if ("equals".equals(name))
+            return (params.size() == 1) && "java.lang.Object".equals(params.get(0).asType().toString());
+        return false;
+    }
+    
+    private boolean isWithToStringHashCodeEquals(TypeElement theInterface) {
+        val elements = processingEnv.getElementUtils();
+        val types    = processingEnv.getTypeUtils();
+        val withTSE  = elements.getTypeElement(WITH_TO_STRING_HASH_CODE_EQUALS);
+        if (withTSE == null)
+            return false;
+        return types.isAssignable(types.erasure(theInterface.asType()), types.erasure(withTSE.asType()));
+    }
+    
+    private void generate(TypeElement theInterface) throws IOException {
+        val elements      = processingEnv.getElementUtils();
+        val packageName   = elements.getPackageOf(theInterface).getQualifiedName().toString();
+        val binaryName    = elements.getBinaryName(theInterface).toString();
+        val className     = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + GENERATED_SUFFIX;
+        val qualifiedName = (packageName.isEmpty() ? "" : packageName + ".") + className;
+        val simpleName    = theInterface.getSimpleName().toString();
+        val isPublic      = theInterface.getModifiers().contains(Modifier.PUBLIC);
+        val typeParams    = typeParametersOf(theInterface);
+        val typeArgs      = typeArgumentsOf(theInterface);
+        
+        val code = new StringBuilder();
+        if (!packageName.isEmpty())
+            code.append("package ").append(packageName).append(";\n\n");
+        
+        code.append("/** Generated implementation of {@link ").append(theInterface.getQualifiedName()).append("} -- do not edit. */\n");
+        code.append(isPublic ? "public " : "").append("final class ").append(className).append(typeParams)
+            .append(" implements ").append(theInterface.getQualifiedName()).append(typeArgs).append(" {\n");
+        code.append("    \n");
+        code.append("    public ").append(className).append("() {\n");
+        code.append("    }\n");
+        code.append("    \n");
+        if (isWithToStringHashCodeEquals(theInterface)) {
+            code.append("    @Override\n");
+            code.append("    public String toString() {\n");
+            code.append("        return _toString();\n");
+            code.append("    }\n");
+            code.append("    \n");
+            code.append("    @Override\n");
+            code.append("    public int hashCode() {\n");
+            code.append("        return _hashCode();\n");
+            code.append("    }\n");
+            code.append("    \n");
+            code.append("    @Override\n");
+            code.append("    public boolean equals(Object obj) {\n");
+            code.append("        return _equals(obj);\n");
+            code.append("    }\n");
+        } else {
+            code.append("    @Override\n");
+            code.append("    public String toString() {\n");
+            code.append("        return \"").append(simpleName).append("@\" + hashCode();\n");
+            code.append("    }\n");
+        }
+        code.append("    \n");
+        code.append("}\n");
+        
+        val file = processingEnv.getFiler().createSourceFile(qualifiedName, theInterface);
+        try (Writer writer = file.openWriter()) {
+            writer.write(code.toString());
+        }
+    }
+    
+    private static String typeParametersOf(TypeElement theInterface) {
+        val typeParameters = theInterface.getTypeParameters();
+        if (typeParameters.isEmpty())
+            return "";
+        
+        val buffer = new StringBuilder("<");
+        for (int i = 0; i < typeParameters.size(); i++) {
+            TypeParameterElement typeParameter = typeParameters.get(i);
+            if (i != 0)
+                buffer.append(", ");
+            buffer.append(typeParameter.getSimpleName());
+            
+            val bounds = new ArrayList<String>();
+            for (TypeMirror bound : typeParameter.getBounds()) {
+                if (!"java.lang.Object".equals(bound.toString()))
+                    bounds.add(bound.toString());
+            }
+            if (!bounds.isEmpty())
+                buffer.append(" extends ").append(String.join(" & ", bounds));
+        }
+        return buffer.append(">").toString();
+    }
+    
+    private static String typeArgumentsOf(TypeElement theInterface) {
+        val typeParameters = theInterface.getTypeParameters();
+        if (typeParameters.isEmpty())
+            return "";
+        
+        val buffer = new StringBuilder("<");
+        for (int i = 0; i < typeParameters.size(); i++) {
+            if (i != 0)
+                buffer.append(", ");
+            buffer.append(typeParameters.get(i).getSimpleName());
+        }
+        return buffer.append(">").toString();
+    }
+    
+}
@@ -0,0 +1,216 @@
+package nawaman.utils.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class DefaultProxyProcessorTest {
+    
+    // The processor only knows the annotations by name so they are compiled along with the test sources.
+    private static final String DEFAULT_PROXY
+            = "package nawaman.utils.reflection;\n"
+            + "public @interface DefaultProxy {}\n";
+    private static final String STRUCTURAL
+            = "package nawaman.utils.reflection;\n"
+            + "public @interface Structural {}\n";
+    private static final String WITH_TO_STRING_HASH_CODE_EQUALS
+            = "package nawaman.utils.reflection;\n"
+            + "public interface WithToStringHashCodeEquals {\n"
+            + "    public String  _toString();\n"
+            + "    public int     _hashCode();\n"
+            + "    public boolean _equals(Object obj);\n"
+            + "}\n";
+    
+    /** The result of a compilation -- the diagnostics and the generated sources by their class names. */
+    private static class Result {
+        
+        final boolean                                    success;
+        final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        final Map<String, String>                        generated;
+        
+        Result(boolean success, List<Diagnostic<? extends JavaFileObject>> diagnostics, Map<String, String> generated) {
+            this.success     = success;
+            this.diagnostics = diagnostics;
+            this.generated   = generated;
+        }
+        
+        List<String> errors() {
+            return diagnostics.stream()
+                    .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                    .map(diagnostic -> diagnostic.getMessage(Locale.ENGLISH))
+                    .collect(toList());
+        }
+        
+    }
+    
+    private static Result compile(String className, String source) {
+        JavaCompiler                        compiler    = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager             standard    = compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, null);
+        Map<String, String>                 generated   = new LinkedHashMap<>();
+        Map<String, ByteArrayOutputStream>  sources     = new LinkedHashMap<>();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                // Keep everything in memory -- only the generated sources are of interest.
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                if (kind == JavaFileObject.Kind.SOURCE)
+                    sources.put(name, bytes);
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return bytes;
+                    }
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        // The generated sources are compiled in the next round.
+                        return bytes.toString();
+                    }
+                };
+            }
+        };
+        
+        List<JavaFileObject> units = new ArrayList<>();
+        units.add(source("nawaman.utils.reflection.DefaultProxy",               DEFAULT_PROXY));
+        units.add(source("nawaman.utils.reflection.Structural",                 STRUCTURAL));
+        units.add(source("nawaman.utils.reflection.WithToStringHashCodeEquals", WITH_TO_STRING_HASH_CODE_EQUALS));
+        units.add(source(className, source));
+        
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, asList("-proc:only"), null, units);
+        task.setProcessors(asList(new DefaultProxyProcessor()));
+        boolean success = task.call();
+        sources.forEach((name, bytes) -> generated.put(name, bytes.toString()));
+        return new Result(success, diagnostics.getDiagnostics(), generated);
+    }
+    
+    private static JavaFileObject source(String className, String source) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+    
+    @Test
+    public void testGenerate() {
+        Result result = compile("p.Greet",
+                  "package p;\n"
+                + "@nawaman.utils.reflection.DefaultProxy\n"
+                + "public interface Greet {\n"
+                + "    public default String greet(String name) { return \"Hello: \" + name; }\n"
+                + "}\n");
+        assertTrue(result.diagnostics.toString(), result.success);
+        
+        String generated = result.generated.get("p.Greet_DefaultProxy");
+        assertNotNull(result.generated.toString(), generated);
+        assertTrue(generated, generated.contains("package p;"));
+        assertTrue(generated, generated.contains("public final class Greet_DefaultProxy implements p.Greet {"));
+        assertTrue(generated, generated.contains("return \"Greet@\" + hashCode();"));
+        assertFalse(generated, generated.contains("_toString()"));
+    }
+    
+    @Test
+    public void testGenerate_nestedGenericWithToStringHashCodeEquals() {
+        Result result = compile("p.Outer",
+                  "package p;\n"
+                + "public class Outer {\n"
+                + "    @nawaman.utils.reflection.DefaultProxy\n"
+                + "    interface Box<T extends Number> extends nawaman.utils.reflection.WithToStringHashCodeEquals {\n"
+                + "        public default T value()                 { return null; }\n"
+                + "        public default String  _toString()       { return \"box\"; }\n"
+                + "        public default int     _hashCode()       { return 42; }\n"
+                + "        public default boolean _equals(Object o) { return false; }\n"
+                + "    }\n"
+                + "}\n");
+        assertTrue(result.diagnostics.toString(), result.success);
+        
+        String generated = result.generated.get("p.Outer$Box_DefaultProxy");
+        assertNotNull(result.generated.toString(), generated);
+        assertTrue(generated, generated.contains("final class Outer$Box_DefaultProxy<T extends java.lang.Number> implements p.Outer.Box<T> {"));
+        assertFalse(generated, generated.contains("public final class"));
+        assertTrue(generated, generated.contains("return _toString();"));
+        assertTrue(generated, generated.contains("return _hashCode();"));
+        assertTrue(generated, generated.contains("return _equals(obj);"));
+    }
+    
+    @Test
+    public void testError_notInterface() {
+        Result result = compile("p.NotInterface",
+                  "package p;\n"
+                + "@nawaman.utils.reflection.DefaultProxy\n"
+                + "public class NotInterface {}\n");
+        assertFalse(result.success);
+        assertEquals(asList("@DefaultProxy is only allowed on an interface: p.NotInterface"), result.errors());
+        assertTrue(result.generated.toString(), result.generated.isEmpty());
+    }
+    
+    @Test
+    public void testError_privateInterface() {
+        Result result = compile("p.Outer",
+                  "package p;\n"
+                + "public class Outer {\n"
+                + "    @nawaman.utils.reflection.DefaultProxy\n"
+                + "    private interface Hidden {}\n"
+                + "}\n");
+        assertFalse(result.success);
+        assertEquals(asList("@DefaultProxy interface must not be private: p.Outer.Hidden"), result.errors());
+        assertTrue(result.generated.toString(), result.generated.isEmpty());
+    }
+    
+    @Test
+    public void testError_abstractMethod() {
+        Result result = compile("p.Abstract",
+                  "package p;\n"
+                + "@nawaman.utils.reflection.DefaultProxy\n"
+                + "public interface Abstract {\n"
+                + "    public default String name() { return \"name\"; }\n"
+                + "    public String abstractName();\n"
+                + "}\n");
+        assertFalse(result.success);
+        assertEquals(asList("Default interface is required: p.Abstract -- abstract methods: [abstractName()]"), result.errors());
+        assertTrue(result.generated.toString(), result.generated.isEmpty());
+    }
+    
+    @Test
+    public void testError_structural() {
+        Result result = compile("p.Point",
+                  "package p;\n"
+                + "@nawaman.utils.reflection.DefaultProxy\n"
+                + "@nawaman.utils.reflection.Structural\n"
+                + "public interface Point {\n"
+                + "    public default int x() { return 1; }\n"
+                + "}\n");
+        assertFalse(result.success);
+        assertEquals(asList("@DefaultProxy can not be used with @Structural: p.Point"), result.errors());
+        assertTrue(result.generated.toString(), result.generated.isEmpty());
+    }
+    
+}
@@ -0,0 +1,197 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.common.KeyedClassMetadata;
+import nawaman.utils.common.LruCache;
+
+/**
+ * Index of the annotations of an annotated element by their names.
+ * 
+ * Each annotation can be looked up by its simple name, its canonical name or its binary name.
+ * The index is computed once per element and cached per class (so it goes away with the class)
+ *   so a lookup is just a hash map get -- the other kinds of elements (e.g., packages) are kept in a bounded cache.
+ * The members with an annotation are only indexed by the names of the annotations the class actually has
+ *   so looking up any other name does not add anything.
+ * When more than one annotations have the same name, the first one wins.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class AnnotationIndex {
+    
+    private static final ClassMetadata<String> simpleNames = new ClassMetadata<>(Class::getSimpleName);
+    
+    private static final ClassMetadata<AnnotationIndex> classIndexes
+            = new ClassMetadata<>(type -> new AnnotationIndex(type.getAnnotations()));
+    
+    // The members and the parameters -- by their declaring classes.
+    private static final KeyedClassMetadata<AnnotatedElement, AnnotationIndex> elementIndexes
+            = new KeyedClassMetadata<>((type, element) -> new AnnotationIndex(element.getAnnotations()));
+    
+    private static final ClassMetadata<MemberIndexes> memberIndexes = new ClassMetadata<>(MemberIndexes::new);
+    
+    private static final int MAX_OTHER_INDEXES = 256;
+    
+    private static final LruCache<AnnotatedElement, AnnotationIndex> otherIndexes = new LruCache<>(MAX_OTHER_INDEXES);
+    
+    private final Map<String, Annotation> annotations;
+    
+    private AnnotationIndex(Annotation[] annotations) {
+        val map = new HashMap<String, Annotation>();
+        for (Annotation annotation : annotations) {
+            val type = annotation.annotationType();
+            map.putIfAbsent(simpleNames.get(type), annotation);
+            map.putIfAbsent(type.getName(),        annotation);
+            if (type.getCanonicalName() != null)
+                map.putIfAbsent(type.getCanonicalName(), annotation);
+        }
+        this.annotations = map;
+    }
+    
+    /**
+     * Returns the (cached) simple name of the given annotation.
+     * 
+     * @param annotation  the annotation.
+     * @return  the simple name of the annotation type.
+     */
+    static String simpleNameOf(Annotation annotation) {
+        return simpleNames.get(annotation.annotationType());
+    }
+    
+    /**
+     * Returns the (cached) index of the given element.
+     * 
+     * Classes, fields, methods, constructors and parameters are cached with their classes;
+     *   the other kinds of elements are cached in a bounded cache.
+     * 
+     * @param element  the annotated element.
+     * @return  the index.
+     */
+    static AnnotationIndex of(AnnotatedElement element) {
+        if (element instanceof Class)
+            return classIndexes.get((Class<?>)element);
+        if (element instanceof Member)
+            return elementIndexes.get(((Member)element).getDeclaringClass(), element);
+        if (element instanceof Parameter)
+            return elementIndexes.get(((Parameter)element).getDeclaringExecutable().getDeclaringClass(), element);
+        return otherIndexes.computeIfAbsent(element, e -> new AnnotationIndex(e.getAnnotations()));
+    }
+    
+    /**
+     * Returns the public fields of the given class with an annotation of the given name.
+     * 
+     * @param type            the class.
+     * @param annotationName  the annotation name.
+     * @return  the unmodifiable list of the fields.
+     */
+    static List<Field> fieldsWithAnnotationName(Class<?> type, String annotationName) {
+        return memberIndexes.get(type).fieldsWithAnnotationName(annotationName);
+    }
+    
+    /**
+     * Returns the public methods of the given class with an annotation of the given name.
+     * 
+     * @param type            the class.
+     * @param annotationName  the annotation name.
+     * @return  the unmodifiable list of the methods.
+     */
+    static List<Method> methodsWithAnnotationName(Class<?> type, String annotationName) {
+        return memberIndexes.get(type).methodsWithAnnotationName(annotationName);
+    }
+    
+    /**
+     * Check if there is an annotation with the given name.
+     * 
+     * @param annotationName  the simple, canonical or binary name of the annotation.
+     * @return  {@code true} if there is.
+     */
+    boolean has(String annotationName) {
+        return annotations.containsKey(annotationName);
+    }
+    
+    /**
+     * Returns the annotation with the given name.
+     * 
+     * @param annotationName  the simple, canonical or binary name of the annotation.
+     * @return  the annotation or null if there is none.
+     */
+    Annotation find(String annotationName) {
+        return annotations.get(annotationName);
+    }
+    
+    /** Indexes of the public members of a class -- per annotation name. */
+    private static final class MemberIndexes {
+        
+        private final Class<?> type;
+        
+        // Only by the names of the annotations the members have -- see byAnnotationName(...).
+        private volatile Map<String, List<Field>> fieldsByName;
+        
+        private volatile Map<String, List<Method>> methodsByName;
+        
+        MemberIndexes(Class<?> type) {
+            this.type = type;
+        }
+        
+        List<Field> fieldsWithAnnotationName(String annotationName) {
+            // Racy but benign -- the map is immutable and the same one is computed.
+            Map<String, List<Field>> fieldsByName = this.fieldsByName;
+            if (fieldsByName == null) {
+                fieldsByName = byAnnotationName(type.getFields());
+                this.fieldsByName = fieldsByName;
+            }
+            return fieldsByName.getOrDefault(annotationName, emptyList());
+        }
+        
+        List<Method> methodsWithAnnotationName(String annotationName) {
+            Map<String, List<Method>> methodsByName = this.methodsByName;
+            if (methodsByName == null) {
+                methodsByName = byAnnotationName(type.getMethods());
+                this.methodsByName = methodsByName;
+            }
+            return methodsByName.getOrDefault(annotationName, emptyList());
+        }
+        
+        private static <M extends AnnotatedElement> Map<String, List<M>> byAnnotationName(M[] members) {
+            val lists = new HashMap<String, List<M>>();
+            for (M member : members) {
+                for (String name : of(member).annotations.keySet()) {
+                    lists.computeIfAbsent(name, __ -> new ArrayList<>()).add(member);
+                }
+            }
+            val map = new HashMap<String, List<M>>();
+            lists.forEach((name, list) -> map.put(name, unmodifiableList(list)));
+            return map;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,131 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Layout of a buffer view interface -- maps each getter annotated with {@link Offset} to a read of the buffer.
+ * 
+ * A class is generated once per interface (see {@link DefaultClassGenerator}) with the buffer, the record size and
+ *   the position as fields and each getter as an absolute {@code ByteBuffer} read at the position plus the offset
+ *   so reading a value or moving the view is a plain method call -- no boxing and no argument array.
+ * The layout is immutable and thread-safe.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class BufferLayout {
+    
+    private static final ClassMetadata<BufferLayout> layouts = new ClassMetadata<>(BufferLayout::new);
+    
+    private static final Map<Class<?>, Integer> sizes = new HashMap<>();
+    static {
+        sizes.put(boolean.class, 1);
+        sizes.put(byte.class,    1);
+        sizes.put(short.class,   2);
+        sizes.put(char.class,    2);
+        sizes.put(int.class,     4);
+        sizes.put(float.class,   4);
+        sizes.put(long.class,    8);
+        sizes.put(double.class,  8);
+    }
+    
+    private final Class<?> theInterface;
+    
+    private final int recordSize;
+    
+    private final MethodHandle constructor;
+    
+    private BufferLayout(Class<?> theInterface) {
+        if (!theInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theInterface);
+        
+        val offsets    = new LinkedHashMap<Method, Integer>();
+        int recordSize = 0;
+        for (Method method : theInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+             || (method.getDeclaringClass() == BufferView.class)
+             || ProxyDispatch.isObjectMethod(method)
+             || (DefaultMethodInvoker.ofOrNull(method) != null))
+                continue;
+            
+            val offset = method.getAnnotation(Offset.class);
+            val size   = sizes.get(method.getReturnType());
+            if ((offset == null) || (size == null) || (method.getParameterCount() != 0) || (offset.value() < 0))
+                throw new IllegalArgumentException("Primitive getter with @Offset is required: " + method);
+            
+            offsets.put(method, offset.value());
+            recordSize = Math.max(recordSize, offset.value() + size);
+        }
+        
+        val interfaces = BufferView.class.isAssignableFrom(theInterface)
+                       ? UProxy.prepareInterfaces(theInterface)
+                       : UProxy.prepareInterfaces(theInterface, BufferView.class);
+        this.theInterface = theInterface;
+        this.recordSize   = recordSize;
+        this.constructor  = DefaultClassGenerator.bufferViewConstructorFor(interfaces, offsets);
+    }
+    
+    /**
+     * Returns the layout of the given interface.
+     * 
+     * @param theInterface  the buffer view interface.
+     * @return  the layout.
+     * @throws IllegalArgumentException  if the interface has an abstract method that is not a primitive getter 
+     *                                     annotated with {@link Offset}.
+     */
+    static BufferLayout of(Class<?> theInterface) {
+        return layouts.get(theInterface);
+    }
+    
+    /** @return  the size of the record in bytes -- the end of the furthest value. */
+    int recordSize() {
+        return recordSize;
+    }
+    
+    /**
+     * Create a new view of the buffer positioned at the first record.
+     * 
+     * @param buffer      the buffer.
+     * @param recordSize  the record size in bytes.
+     * @return  the newly created view.
+     */
+    Object create(ByteBuffer buffer, int recordSize) {
+        if (recordSize < this.recordSize)
+            throw new IllegalArgumentException("Record size of at least " + this.recordSize + " is required: " + recordSize);
+        
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.proxyCreated(theInterface);
+        
+        try {
+            return (Object)constructor.invokeExact(buffer, recordSize);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+}
@@ -0,0 +1,73 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cursor of a buffer view -- a flyweight that reads the record at its position through the getters of its interface.
+ * 
+ * All buffer views implement this interface; the interface of the view may also extend it to avoid the casting.
+ * The view is an instance of a generated class so neither moving the view nor reading a primitive value allocates
+ *   -- a single view can scan a whole (memory mapped) buffer:
+ * <pre>
+ * for (view.moveTo(0); view.hasRecord(); view.next()) {
+ *     ...
+ * }
+ * </pre>
+ * A view is not thread-safe -- use one view per thread.
+ * 
+ * @see UProxy#createBufferView(Class, ByteBuffer)
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public interface BufferView {
+    
+    /** @return  the buffer the view reads. */
+    public ByteBuffer buffer();
+    
+    /** @return  the size of a record in bytes. */
+    public int recordSize();
+    
+    /** @return  the position of the current record in the buffer in bytes. */
+    public int position();
+    
+    /** @return  {@code true} if there is a whole record at the current position. */
+    public boolean hasRecord();
+    
+    /**
+     * Move the view to the record at the given position.
+     * 
+     * @param position  the position in bytes.
+     * @return  this view.
+     */
+    public BufferView moveTo(int position);
+    
+    /**
+     * Move the view to the next record -- that is {@link #recordSize()} bytes further.
+     * 
+     * @return  this view.
+     */
+    public BufferView next();
+    
+    /**
+     * Switch the view to read the given buffer from its beginning -- to scan a file mapped in multiple buffers.
+     * 
+     * @param buffer  the buffer.
+     * @return  this view.
+     */
+    public BufferView wrap(ByteBuffer buffer);
+    
+}
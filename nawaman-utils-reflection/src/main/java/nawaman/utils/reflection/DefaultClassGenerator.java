@@ -0,0 +1,740 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import lombok.val;
+import nawaman.utils.common.KeyedClassMetadata;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Generates a real class implementing a set of default interfaces.
+ * 
+ * The generated class only has a constructor and inherits all the default methods so calls to it are ordinary
+ *   interface calls. Bridges (using {@code invokespecial}) are only generated for the methods that the JVM will not
+ *   select a default for by itself -- e.g., a default method re-declared as abstract in a sub interface.
+ * The class of a buffer view (see {@link BufferLayout}) also has the buffer, the record size and the position as fields,
+ *   the getters as direct absolute {@code ByteBuffer} reads and the {@link BufferView} methods.
+ * 
+ * The class is defined as a hidden class when it is possible (Java 15+), as a class in the interface package
+ *   (Java 9+) or directly in the class loader of the interface (Java 8) -- so it can implement a package-private
+ *   interface. A child class loader is only the last resort and only works for public interfaces.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class DefaultClassGenerator {
+    
+    private static final String SUFFIX = "$$Default";
+    
+    private static final String BUFFER_VIEW_SUFFIX = "$$BufferView";
+    
+    private static final AtomicInteger counter = new AtomicInteger();
+    
+    private static final Method defineHiddenClass = getLookupMethod("defineHiddenClass", byte[].class, boolean.class, classOptionArrayClass());
+    private static final Method defineClass       = getLookupMethod("defineClass",       byte[].class);
+    
+    // Only looked up when Lookup.defineClass is not there (Java 8) -- it is an illegal access from Java 9.
+    private static final Method loaderDefineClass = (defineClass == null) ? getLoaderDefineClass() : null;
+    
+    private static final KeyedClassMetadata<List<Class<?>>, MethodHandle> constructors
+            = new KeyedClassMetadata<>((mainInterface, interfaces) -> generate(interfaces.toArray(new Class<?>[0])));
+    
+    private DefaultClassGenerator() {
+    }
+    
+    /**
+     * Returns the constructor (with the type {@code ()Object}) of the class that implements the given interfaces.
+     * 
+     * @param interfaces  the interfaces -- the first one is the main interface.
+     * @return  the constructor handle.
+     * @throws IllegalArgumentException  if any of the given interface is not a default interface.
+     */
+    static MethodHandle constructorFor(Class<?>[] interfaces) {
+        return constructors.get(interfaces[0], Arrays.<Class<?>>asList(interfaces));
+    }
+    
+    private static MethodHandle generate(Class<?>[] interfaces) {
+        for (Class<?> each : interfaces) {
+            if (!UProxy.isDefaultInterface(each))
+                throw new IllegalArgumentException("Default interface is required: " + each);
+        }
+        
+        val mainInterface  = interfaces[0];
+        val directs        = new LinkedHashSet<Class<?>>(Arrays.asList(interfaces));
+        val bridges        = findBridges(interfaces, true);
+        bridges.values().forEach(method -> directs.add(method.getDeclaringClass()));
+        
+        val className      = mainInterface.getName().replace('.', '/') + SUFFIX;
+        val withToString   = hasWithToStringHashCodeEquals(interfaces);
+        val simpleName     = mainInterface.getSimpleName();
+        val classBytes     = (Function<String, byte[]>)(name -> {
+            return new ClassFileWriter(name, directs, bridges.values(), withToString, simpleName).toBytes();
+        });
+        
+        try {
+            return defineAndGetConstructor(mainInterface, className, methodType(void.class), classBytes);
+        } catch (Throwable e) {
+            throw new UReflectionException("Unable to generate the default implementation for: " + Arrays.toString(interfaces), e);
+        }
+    }
+    
+    /**
+     * Returns the constructor (with the type {@code (ByteBuffer, int)Object}) of a new buffer view class 
+     *   -- the caller is expected to cache it.
+     * 
+     * @param interfaces  the interfaces -- the first one is the main interface and one of them is {@link BufferView}.
+     * @param offsets     the offset of each getter.
+     * @return  the constructor handle.
+     */
+    static MethodHandle bufferViewConstructorFor(Class<?>[] interfaces, Map<Method, Integer> offsets) {
+        val mainInterface = interfaces[0];
+        val directs       = new LinkedHashSet<Class<?>>(Arrays.asList(interfaces));
+        val bridges       = findBridges(interfaces, false);
+        bridges.values().forEach(method -> directs.add(method.getDeclaringClass()));
+        
+        val viewMethods = new ArrayList<Method>();
+        for (Class<?> theInterface : interfaces) {
+            for (Method method : theInterface.getMethods()) {
+                if (isViewMethod(method))
+                    viewMethods.add(method);
+            }
+        }
+        
+        val className    = mainInterface.getName().replace('.', '/') + BUFFER_VIEW_SUFFIX;
+        val withToString = hasWithToStringHashCodeEquals(interfaces);
+        val simpleName   = mainInterface.getSimpleName();
+        val classBytes   = (Function<String, byte[]>)(name -> {
+            return new ClassFileWriter(name, directs, bridges.values(), withToString, simpleName, offsets, viewMethods).toBytes();
+        });
+        
+        try {
+            return defineAndGetConstructor(mainInterface, className, methodType(void.class, ByteBuffer.class, int.class), classBytes);
+        } catch (Throwable e) {
+            throw new UReflectionException("Unable to generate the buffer view for: " + Arrays.toString(interfaces), e);
+        }
+    }
+    
+    private static boolean isViewMethod(Method method) {
+        if (!Modifier.isAbstract(method.getModifiers()))
+            return false;
+        try {
+            BufferView.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+    
+    private static boolean hasWithToStringHashCodeEquals(Class<?>[] interfaces) {
+        for (Class<?> theInterface : interfaces) {
+            if (WithToStringHashCodeEquals.class.isAssignableFrom(theInterface))
+                return true;
+        }
+        return false;
+    }
+    
+    //== Bridges ==
+    
+    /**
+     * Find the methods the JVM will not select a default method by itself -- mapped to the default method to call.
+     * 
+     * If not all the methods must have a default, the methods without one are left for the class to implement.
+     **/
+    private static Map<String, Method> findBridges(Class<?>[] interfaces, boolean isAllDefault) {
+        // The declarations are grouped by the descriptor as that is how the JVM selects the method.
+        val candidates = new LinkedHashMap<String, Set<Method>>();
+        for (Class<?> theInterface : interfaces) {
+            for (Method method : DefaultResolution.of(theInterface).declarations()) {
+                val signature = method.getName() + methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+                candidates.computeIfAbsent(signature, __ -> new LinkedHashSet<>()).add(method);
+            }
+        }
+        
+        val bridges = new HashMap<String, Method>();
+        candidates.forEach((signature, methods) -> {
+            val first = methods.iterator().next();
+            if (ProxyDispatch.isObjectMethod(first))
+                return;
+            
+            val maximals    = DefaultResolution.maximallySpecific(new ArrayList<>(methods));
+            val nonAbstract = maximals.stream().filter(method -> !Modifier.isAbstract(method.getModifiers())).count();
+            if (nonAbstract == 1)
+                return;
+            
+            val defaultMethod = maximals.stream()
+                    .map(DefaultResolution::defaultMethodOf)
+                    .filter(method -> method != null)
+                    .findFirst();
+            if (defaultMethod.isPresent())
+                bridges.put(signature, defaultMethod.get());
+            else if (isAllDefault)
+                throw new NotDefaultMethodException(maximals.get(0));
+        });
+        return bridges;
+    }
+    
+    //== Define ==
+    
+    private static MethodHandle defineAndGetConstructor(Class<?> mainInterface, String className, MethodType constructorType,
+                                                        Function<String, byte[]> classBytes) throws Throwable {
+        val handleType = constructorType.changeReturnType(Object.class);
+        val lookup     = DefaultMethodInvoker.lookupFor(mainInterface);
+        if (defineHiddenClass != null) {
+            try {
+                val options      = Array.newInstance(classOptionArrayClass().getComponentType(), 0);
+                val hiddenLookup = (Lookup)defineHiddenClass.invoke(lookup, classBytes.apply(className), true, options);
+                val hiddenClass  = hiddenLookup.lookupClass();
+                return hiddenLookup.findConstructor(hiddenClass, constructorType).asType(handleType);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall through -- try to define as a normal class.
+            }
+        }
+        
+        // Not hidden so the name must be unique.
+        val uniqueBytes = classBytes.apply(className + counter.incrementAndGet());
+        if (defineClass != null) {
+            try {
+                val theClass = (Class<?>)defineClass.invoke(lookup, (Object)uniqueBytes);
+                return lookup.findConstructor(theClass, constructorType).asType(handleType);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall through -- try to define with a class loader.
+            }
+        }
+        
+        // The class must be in the same runtime package (class loader and package) to access a package-private interface.
+        val interfaceLoader = mainInterface.getClassLoader();
+        if ((loaderDefineClass != null) && (interfaceLoader != null)) {
+            try {
+                val theClass = (Class<?>)loaderDefineClass.invoke(interfaceLoader, null, uniqueBytes, 0, uniqueBytes.length);
+                return MethodHandles.publicLookup().findConstructor(theClass, constructorType).asType(handleType);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall through -- try to define with a child class loader.
+            }
+        }
+        
+        val classLoader = new GeneratedClassLoader(mainInterface.getClassLoader());
+        val theClass    = classLoader.define(uniqueBytes);
+        return MethodHandles.publicLookup().findConstructor(theClass, constructorType).asType(handleType);
+    }
+    
+    private static Class<?> classOptionArrayClass() {
+        try {
+            val classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            return Array.newInstance(classOption, 0).getClass();
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+    
+    private static Method getLookupMethod(String name, Class<?> ... parameterTypes) {
+        for (Class<?> parameterType : parameterTypes) {
+            if (parameterType == null)
+                return null;
+        }
+        try {
+            return Lookup.class.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private static Method getLoaderDefineClass() {
+        try {
+            val method = ClassLoader.class.getDeclaredMethod("defineClass", String.class, byte[].class, int.class, int.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+        Class<?> define(byte[] classBytes) {
+            return defineClass(null, classBytes, 0, classBytes.length);
+        }
+    }
+    
+    //== Class file ==
+    
+    /**
+     * Minimal class file writer for the generated class (class file version 52 -- Java 8).
+     **/
+    static final class ClassFileWriter {
+        
+        private static final int ACC_PUBLIC  = 0x0001;
+        private static final int ACC_PRIVATE = 0x0002;
+        private static final int ACC_FINAL   = 0x0010;
+        private static final int ACC_SUPER   = 0x0020;
+        
+        private static final int CONSTANT_Utf8               = 1;
+        private static final int CONSTANT_Integer            = 3;
+        private static final int CONSTANT_Class              = 7;
+        private static final int CONSTANT_String             = 8;
+        private static final int CONSTANT_Fieldref           = 9;
+        private static final int CONSTANT_Methodref          = 10;
+        private static final int CONSTANT_InterfaceMethodref = 11;
+        private static final int CONSTANT_NameAndType        = 12;
+        
+        private static final int ICONST_0        = 0x03;
+        private static final int ICONST_1        = 0x04;
+        private static final int BIPUSH          = 0x10;
+        private static final int SIPUSH          = 0x11;
+        private static final int LDC_W           = 0x13;
+        private static final int ILOAD_1         = 0x1b;
+        private static final int ILOAD_2         = 0x1c;
+        private static final int ALOAD_0         = 0x2a;
+        private static final int ALOAD_1         = 0x2b;
+        private static final int DUP             = 0x59;
+        private static final int IADD            = 0x60;
+        private static final int ISUB            = 0x64;
+        private static final int INEG            = 0x74;
+        private static final int IUSHR           = 0x7c;
+        private static final int IOR             = 0x80;
+        private static final int IXOR            = 0x82;
+        private static final int IRETURN         = 0xac;
+        private static final int ARETURN         = 0xb0;
+        private static final int RETURN          = 0xb1;
+        private static final int GETFIELD        = 0xb4;
+        private static final int PUTFIELD        = 0xb5;
+        private static final int INVOKEVIRTUAL   = 0xb6;
+        private static final int INVOKESPECIAL   = 0xb7;
+        private static final int INVOKESTATIC    = 0xb8;
+        private static final int INVOKEINTERFACE = 0xb9;
+        
+        private static final String OBJECT      = "java/lang/Object";
+        private static final String BYTE_BUFFER = "java/nio/ByteBuffer";
+        private static final String BUFFER_TYPE = "Ljava/nio/ByteBuffer;";
+        private static final String WITH_TSE = WithToStringHashCodeEquals.class.getName().replace('.', '/');
+        
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream      pool      = new DataOutputStream(poolBytes);
+        private final Map<String, Integer>  constants = new HashMap<>();
+        private int                         poolSize  = 1;
+        
+        private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+        private final DataOutputStream      fields     = new DataOutputStream(fieldBytes);
+        private int                         fieldCount = 0;
+        
+        private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        private final DataOutputStream      methods     = new DataOutputStream(methodBytes);
+        private int                         methodCount = 0;
+        
+        private final int   thisClass;
+        private final int   superClass;
+        private final int[] interfaces;
+        
+        private final String className;
+        
+        ClassFileWriter(String className, Set<Class<?>> interfaces, Iterable<Method> bridges, boolean withToString, String simpleName) {
+            this(className, interfaces);
+            
+            writeConstructor();
+            bridges.forEach(this::writeBridge);
+            writeObjectMethods(withToString, simpleName);
+        }
+        
+        ClassFileWriter(String className, Set<Class<?>> interfaces, Iterable<Method> bridges, boolean withToString, String simpleName,
+                        Map<Method, Integer> offsets, Iterable<Method> viewMethods) {
+            this(className, interfaces);
+            
+            writeField(ACC_PRIVATE,             "buffer",     BUFFER_TYPE);
+            writeField(ACC_PRIVATE | ACC_FINAL, "recordSize", "I");
+            writeField(ACC_PRIVATE,             "position",   "I");
+            writeBufferViewConstructor();
+            offsets.forEach(this::writeBufferGetter);
+            val written = new HashSet<String>();
+            for (Method method : viewMethods) {
+                if (written.add(method.getName() + descriptorOf(method)))
+                    writeViewMethod(method);
+            }
+            bridges.forEach(this::writeBridge);
+            writeObjectMethods(withToString, simpleName);
+        }
+        
+        private ClassFileWriter(String className, Set<Class<?>> interfaces) {
+            this.className  = className;
+            this.thisClass  = classConstant(className);
+            this.superClass = classConstant(OBJECT);
+            this.interfaces = interfaces.stream().mapToInt(each -> classConstant(internalName(each))).toArray();
+        }
+        
+        byte[] toBytes() {
+            try {
+                val bytes = new ByteArrayOutputStream();
+                val out   = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(poolSize);
+                out.write(poolBytes.toByteArray());
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(interfaces.length);
+                for (int each : interfaces)
+                    out.writeShort(each);
+                out.writeShort(fieldCount);
+                out.write(fieldBytes.toByteArray());
+                out.writeShort(methodCount);
+                out.write(methodBytes.toByteArray());
+                out.writeShort(0);  // attributes
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UReflectionException(e);
+            }
+        }
+        
+        private void writeConstructor() {
+            val code = new Code();
+            code.op(ALOAD_0);
+            code.op(INVOKESPECIAL).u2(methodConstant(CONSTANT_Methodref, OBJECT, "<init>", "()V"));
+            code.op(RETURN);
+            writeMethod("<init>", "()V", 1, 1, code);
+        }
+        
+        private void writeBridge(Method method) {
+            val descriptor = descriptorOf(method);
+            val owner      = internalName(method.getDeclaringClass());
+            val code       = new Code();
+            code.op(ALOAD_0);
+            int slot = 1;
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                code.op(loadOpcode(parameterType)).u1(slot);
+                slot += slotSize(parameterType);
+            }
+            code.op(INVOKESPECIAL).u2(methodConstant(CONSTANT_InterfaceMethodref, owner, method.getName(), descriptor));
+            code.op(returnOpcode(method.getReturnType()));
+            val maxStack = Math.max(slot, slotSize(method.getReturnType()));
+            writeMethod(method.getName(), descriptor, maxStack, slot, code);
+        }
+        
+        private void writeObjectMethods(boolean withToString, String simpleName) {
+            if (withToString)
+                 writeWithToStringHashCodeEquals();
+            else writeToString(simpleName);
+        }
+        
+        //-- Buffer view --
+        
+        private void writeBufferViewConstructor() {
+            val code = new Code();
+            code.op(ALOAD_0);
+            code.op(INVOKESPECIAL).u2(methodConstant(CONSTANT_Methodref, OBJECT, "<init>", "()V"));
+            code.op(ALOAD_0).op(ALOAD_1).op(PUTFIELD).u2(fieldConstant("buffer", BUFFER_TYPE));
+            code.op(ALOAD_0).op(ILOAD_2).op(PUTFIELD).u2(fieldConstant("recordSize", "I"));
+            code.op(RETURN);
+            writeMethod("<init>", "(" + BUFFER_TYPE + "I)V", 2, 3, code);
+        }
+        
+        private void writeBufferGetter(Method method, int offset) {
+            // return this.buffer.getX(this.position + offset);
+            val type     = method.getReturnType();
+            val readType = (type == boolean.class) ? byte.class : type;
+            val readName = "get" + ((readType == byte.class) ? "" : Character.toUpperCase(readType.getName().charAt(0)) + readType.getName().substring(1));
+            val code     = new Code();
+            code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("buffer", BUFFER_TYPE));
+            code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("position", "I"));
+            pushInt(code, offset);
+            code.op(IADD);
+            code.op(INVOKEVIRTUAL).u2(methodConstant(CONSTANT_Methodref, BYTE_BUFFER, readName, "(I)" + descriptorOf(readType)));
+            if (type == boolean.class) {
+                // (value | -value) >>> 31 -- one if not zero without a branch (so no stack map frame is needed).
+                code.op(DUP).op(INEG).op(IOR);
+                code.op(BIPUSH).u1(31).op(IUSHR);
+            }
+            code.op(returnOpcode(type));
+            writeMethod(method.getName(), descriptorOf(method), 3, 1, code);
+        }
+        
+        private void writeViewMethod(Method method) {
+            val code = new Code();
+            switch (method.getName()) {
+            case "buffer":
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("buffer", BUFFER_TYPE));
+                code.op(ARETURN);
+                break;
+            case "recordSize":
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("recordSize", "I"));
+                code.op(IRETURN);
+                break;
+            case "position":
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("position", "I"));
+                code.op(IRETURN);
+                break;
+            case "hasRecord":
+                // ((position | (buffer.limit() - position - recordSize)) >>> 31) ^ 1 -- one if both are not negative.
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("position", "I"));
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("buffer", BUFFER_TYPE));
+                code.op(INVOKEVIRTUAL).u2(methodConstant(CONSTANT_Methodref, BYTE_BUFFER, "limit", "()I"));
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("position", "I"));
+                code.op(ISUB);
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("recordSize", "I"));
+                code.op(ISUB);
+                code.op(IOR);
+                code.op(BIPUSH).u1(31).op(IUSHR);
+                code.op(ICONST_1).op(IXOR);
+                code.op(IRETURN);
+                break;
+            case "moveTo":
+                code.op(ALOAD_0).op(ILOAD_1).op(PUTFIELD).u2(fieldConstant("position", "I"));
+                code.op(ALOAD_0).op(ARETURN);
+                break;
+            case "next":
+                code.op(ALOAD_0).op(DUP).op(GETFIELD).u2(fieldConstant("position", "I"));
+                code.op(ALOAD_0).op(GETFIELD).u2(fieldConstant("recordSize", "I"));
+                code.op(IADD);
+                code.op(PUTFIELD).u2(fieldConstant("position", "I"));
+                code.op(ALOAD_0).op(ARETURN);
+                break;
+            case "wrap":
+                code.op(ALOAD_0).op(ALOAD_1).op(PUTFIELD).u2(fieldConstant("buffer", BUFFER_TYPE));
+                code.op(ALOAD_0).op(ICONST_0).op(PUTFIELD).u2(fieldConstant("position", "I"));
+                code.op(ALOAD_0).op(ARETURN);
+                break;
+            default:
+                throw new UReflectionException("Unknown buffer view method: " + method);
+            }
+            writeMethod(method.getName(), descriptorOf(method), 3, 1 + method.getParameterCount(), code);
+        }
+        
+        private void pushInt(Code code, int value) {
+            if (value <= Byte.MAX_VALUE)
+                 code.op(BIPUSH).u1(value);
+            else if (value <= Short.MAX_VALUE)
+                 code.op(SIPUSH).u2(value);
+            else code.op(LDC_W).u2(intConstant(value));
+        }
+        
+        private void writeField(int access, String name, String descriptor) {
+            try {
+                fields.writeShort(access);
+                fields.writeShort(utf8Constant(name));
+                fields.writeShort(utf8Constant(descriptor));
+                fields.writeShort(0);  // attributes
+                fieldCount++;
+            } catch (IOException e) {
+                throw new UReflectionException(e);
+            }
+        }
+        
+        private void writeWithToStringHashCodeEquals() {
+            val toString = new Code();
+            toString.op(ALOAD_0);
+            toString.op(INVOKEINTERFACE).u2(methodConstant(CONSTANT_InterfaceMethodref, WITH_TSE, "_toString", "()Ljava/lang/String;")).u1(1).u1(0);
+            toString.op(ARETURN);
+            writeMethod("toString", "()Ljava/lang/String;", 1, 1, toString);
+            
+            val hashCode = new Code();
+            hashCode.op(ALOAD_0);
+            hashCode.op(INVOKEINTERFACE).u2(methodConstant(CONSTANT_InterfaceMethodref, WITH_TSE, "_hashCode", "()I")).u1(1).u1(0);
+            hashCode.op(IRETURN);
+            writeMethod("hashCode", "()I", 1, 1, hashCode);
+            
+            val equals = new Code();
+            equals.op(ALOAD_0);
+            equals.op(ALOAD_1);
+            equals.op(INVOKEINTERFACE).u2(methodConstant(CONSTANT_InterfaceMethodref, WITH_TSE, "_equals", "(Ljava/lang/Object;)Z")).u1(2).u1(0);
+            equals.op(IRETURN);
+            writeMethod("equals", "(Ljava/lang/Object;)Z", 2, 2, equals);
+        }
+        
+        private void writeToString(String simpleName) {
+            // return "SimpleName@".concat(Integer.toString(this.hashCode()));
+            val code = new Code();
+            code.op(LDC_W).u2(stringConstant(simpleName + "@"));
+            code.op(ALOAD_0);
+            code.op(INVOKEVIRTUAL).u2(methodConstant(CONSTANT_Methodref, OBJECT, "hashCode", "()I"));
+            code.op(INVOKESTATIC).u2(methodConstant(CONSTANT_Methodref, "java/lang/Integer", "toString", "(I)Ljava/lang/String;"));
+            code.op(INVOKEVIRTUAL).u2(methodConstant(CONSTANT_Methodref, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;"));
+            code.op(ARETURN);
+            writeMethod("toString", "()Ljava/lang/String;", 2, 1, code);
+        }
+        
+        private void writeMethod(String name, String descriptor, int maxStack, int maxLocals, Code code) {
+            try {
+                val codeBytes = code.bytes.toByteArray();
+                methods.writeShort(ACC_PUBLIC);
+                methods.writeShort(utf8Constant(name));
+                methods.writeShort(utf8Constant(descriptor));
+                methods.writeShort(1);
+                methods.writeShort(utf8Constant("Code"));
+                methods.writeInt(12 + codeBytes.length);
+                methods.writeShort(maxStack);
+                methods.writeShort(maxLocals);
+                methods.writeInt(codeBytes.length);
+                methods.write(codeBytes);
+                methods.writeShort(0);  // exception table
+                methods.writeShort(0);  // attributes
+                methodCount++;
+            } catch (IOException e) {
+                throw new UReflectionException(e);
+            }
+        }
+        
+        //-- Constant pool --
+        
+        private int utf8Constant(String value) {
+            return constant("U:" + value, out -> {
+                out.writeByte(CONSTANT_Utf8);
+                out.writeUTF(value);
+            });
+        }
+        
+        private int classConstant(String internalName) {
+            val nameIndex = utf8Constant(internalName);
+            return constant("C:" + internalName, out -> {
+                out.writeByte(CONSTANT_Class);
+                out.writeShort(nameIndex);
+            });
+        }
+        
+        private int stringConstant(String value) {
+            val valueIndex = utf8Constant(value);
+            return constant("S:" + value, out -> {
+                out.writeByte(CONSTANT_String);
+                out.writeShort(valueIndex);
+            });
+        }
+        
+        private int intConstant(int value) {
+            return constant("I:" + value, out -> {
+                out.writeByte(CONSTANT_Integer);
+                out.writeInt(value);
+            });
+        }
+        
+        private int fieldConstant(String name, String descriptor) {
+            return methodConstant(CONSTANT_Fieldref, className, name, descriptor);
+        }
+        
+        private int methodConstant(int tag, String owner, String name, String descriptor) {
+            val classIndex       = classConstant(owner);
+            val nameIndex        = utf8Constant(name);
+            val descriptorIndex  = utf8Constant(descriptor);
+            val nameAndTypeIndex = constant("N:" + name + ":" + descriptor, out -> {
+                out.writeByte(CONSTANT_NameAndType);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return constant("M" + tag + ":" + owner + "." + name + descriptor, out -> {
+                out.writeByte(tag);
+                out.writeShort(classIndex);
+                out.writeShort(nameAndTypeIndex);
+            });
+        }
+        
+        private int constant(String key, ConstantWriter writer) {
+            val existing = constants.get(key);
+            if (existing != null)
+                return existing;
+            
+            try {
+                writer.write(pool);
+            } catch (IOException e) {
+                throw new UReflectionException(e);
+            }
+            val index = poolSize++;
+            constants.put(key, index);
+            return index;
+        }
+        
+        private static interface ConstantWriter {
+            void write(DataOutputStream out) throws IOException;
+        }
+        
+        private static final class Code {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Code op(int opcode) {
+                bytes.write(opcode);
+                return this;
+            }
+            Code u1(int value) {
+                bytes.write(value);
+                return this;
+            }
+            Code u2(int value) {
+                bytes.write(value >>> 8);
+                bytes.write(value);
+                return this;
+            }
+        }
+        
+        //-- Types --
+        
+        private static String internalName(Class<?> type) {
+            return type.getName().replace('.', '/');
+        }
+        
+        private static String descriptorOf(Method method) {
+            return methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+        }
+        
+        private static String descriptorOf(Class<?> type) {
+            return methodType(type).toMethodDescriptorString().substring(2);
+        }
+        
+        private static int slotSize(Class<?> type) {
+            if (type == void.class)
+                return 0;
+            return ((type == long.class) || (type == double.class)) ? 2 : 1;
+        }
+        
+        private static int loadOpcode(Class<?> type) {
+            if (!type.isPrimitive())  return 0x19;  // aload
+            if (type == long.class)   return 0x16;  // lload
+            if (type == float.class)  return 0x17;  // fload
+            if (type == double.class) return 0x18;  // dload
+            return 0x15;                            // iload
+        }
+        
+        private static int returnOpcode(Class<?> type) {
+            if (type == void.class)   return RETURN;
+            if (!type.isPrimitive())  return ARETURN;
+            if (type == long.class)   return 0xad;  // lreturn
+            if (type == float.class)  return 0xae;  // freturn
+            if (type == double.class) return 0xaf;  // dreturn
+            return IRETURN;
+        }
+    }
+    
+}
@@ -0,0 +1,204 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.common.KeyedClassMetadata;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Linked invoker of an interface default method.
+ * 
+ * The invoker is resolved once per method and cached per declaring class (so it goes away with the class).
+ * After that, an invocation is a single {@code invokeExact} on a pre-adapted spreader handle.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class DefaultMethodInvoker {
+    
+    /** The type of the spreader handle: (Object proxy, Object[] args)Object. */
+    static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    
+    private static final Method privateLookupIn = getPrivateLookupInMethod();
+    
+    private static final ClassMetadata<Lookup> lookups = new ClassMetadata<>(type -> {
+        try {
+            return getLookup(type);
+        } catch (Exception e) {
+            throw new UReflectionException("Unable to get a lookup for: " + type, e);
+        }
+    });
+    
+    private static final KeyedClassMetadata<Method, DefaultMethodInvoker> invokers
+            = new KeyedClassMetadata<>((type, method) -> link(method));
+    
+    private final Method       method;
+    private final Method       defaultMethod;
+    private final MethodHandle special;
+    private final MethodHandle invoker;
+    
+    private DefaultMethodInvoker(Method method, Method defaultMethod, MethodHandle special, MethodHandle invoker) {
+        this.method        = method;
+        this.defaultMethod = defaultMethod;
+        this.special       = special;
+        this.invoker       = invoker;
+    }
+    
+    /**
+     * Returns the (cached) invoker for the given method.
+     * 
+     * @param method  the method.
+     * @return  the invoker.
+     * @throws NotDefaultMethodException  if there is no default method for the given method.
+     */
+    static DefaultMethodInvoker of(Method method) throws NotDefaultMethodException {
+        val invoker = lookup(method);
+        if (invoker.defaultMethod == null) {
+            if (ProxyTracing.TRACER != null)
+                ProxyTracing.TRACER.notDefaultMethod(method);
+            throw new NotDefaultMethodException(method);
+        }
+        return invoker;
+    }
+    
+    /**
+     * Returns the (cached) invoker for the given method or null if there is no default method for it.
+     * 
+     * @param method  the method.
+     * @return  the invoker or null.
+     */
+    static DefaultMethodInvoker ofOrNull(Method method) {
+        val invoker = lookup(method);
+        return (invoker.defaultMethod != null) ? invoker : null;
+    }
+    
+    private static DefaultMethodInvoker lookup(Method method) {
+        val invoker = invokers.peek(method.getDeclaringClass(), method);
+        if (invoker != null) {
+            if (ProxyMetrics.ENABLED)
+                ProxyMetrics.cacheHit(ProxyMetrics.Cache.DEFAULT_METHOD_INVOKER);
+            return invoker;
+        }
+        
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.cacheMiss(ProxyMetrics.Cache.DEFAULT_METHOD_INVOKER);
+        return invokers.get(method.getDeclaringClass(), method);
+    }
+    
+    private static DefaultMethodInvoker link(Method method) {
+        val tracer = ProxyTracing.TRACER;
+        if (tracer == null)
+            return doLink(method);
+        
+        val trace   = tracer.beginDefaultMethodResolution(method);
+        val invoker = doLink(method);
+        tracer.endDefaultMethodResolution(trace, invoker.defaultMethod);
+        return invoker;
+    }
+    
+    private static DefaultMethodInvoker doLink(Method method) {
+        val defaultMethod = DefaultResolution.defaultMethodOf(method);
+        if (defaultMethod == null)
+            return new DefaultMethodInvoker(method, null, null, null);
+        
+        // Thanks to https://blog.jooq.org/2018/03/28/correct-reflective-access-to-interface-default-methods-in-java-8-9-10
+        try {
+            val declaringClass = defaultMethod.getDeclaringClass();
+            val lookup         = lookups.get(declaringClass);
+            val mthdType       = MethodType.methodType(defaultMethod.getReturnType(), defaultMethod.getParameterTypes());
+            val special        = lookup.findSpecial(declaringClass, defaultMethod.getName(), mthdType, declaringClass);
+            val paramCount     = method.getParameterCount();
+            val invoker        = special
+                    .asType(MethodType.genericMethodType(paramCount + 1))
+                    .asSpreader(Object[].class, paramCount);
+            return new DefaultMethodInvoker(method, defaultMethod, special, invoker);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException("Unable to link the default method: " + defaultMethod, e);
+        }
+    }
+    
+    /**
+     * Returns the (cached) private lookup of the given type.
+     * 
+     * @param type  the type.
+     * @return  the lookup.
+     */
+    static Lookup lookupFor(Class<?> type) {
+        return lookups.get(type);
+    }
+    
+    /** @return  the method this invoker is for. */
+    Method method() {
+        return method;
+    }
+    
+    /** @return  the default method that will actually be invoked. */
+    Method defaultMethod() {
+        return defaultMethod;
+    }
+    
+    /** @return  the unbound special handle of the default method -- (Interface, params...)ReturnType. */
+    MethodHandle special() {
+        return special;
+    }
+    
+    /** @return  the spreader handle of the type {@link #INVOKER_TYPE}. */
+    MethodHandle invoker() {
+        return invoker;
+    }
+    
+    /**
+     * Invoke the default method on the given object.
+     * 
+     * @param proxy       the object.
+     * @param methodArgs  the arguments -- can be null when the method takes no parameter.
+     * @return  the invocation result.
+     * @throws Throwable  any exception thrown by the method.
+     */
+    Object invoke(Object proxy, Object[] methodArgs) throws Throwable {
+        return (Object)invoker.invokeExact(proxy, methodArgs);
+    }
+    
+    private static Method getPrivateLookupInMethod() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", new Class[] { Class.class, Lookup.class });
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private static Lookup getLookup(Class<?> type) throws Exception {
+        val rawLookup = MethodHandles.lookup();
+        if (privateLookupIn != null) {
+            val lookup = (Lookup)privateLookupIn.invoke(MethodHandles.class, type, rawLookup);
+            return lookup;
+        } else {
+            Constructor<Lookup> constructor = Lookup.class.getDeclaredConstructor(Class.class);
+            constructor.setAccessible(true);
+            val lookup = constructor.newInstance(type);
+            return lookup;
+        }
+    }
+    
+}
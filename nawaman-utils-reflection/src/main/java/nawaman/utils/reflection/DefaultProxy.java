@@ -0,0 +1,42 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a default interface to have its implementation generated at compile time.
+ * 
+ * With the annotation processor from {@code nawaman-utils-processor} on the annotation processor path,
+ *   a class named {@code <InterfaceBinaryName>_DefaultProxy} is generated in the same package.
+ * The generated class inherits all the default methods and has {@code toString()}, {@code hashCode()} and 
+ *   {@code equals(Object)} that follow the {@link WithToStringHashCodeEquals} rules.
+ * {@link UProxy#createDefaultProxy(Class, Class...)} and {@link UProxy#factoryFor(Class, Class...)} use
+ *   the generated class automatically (when no additional interface is given) so there is no dynamic proxy.
+ * The generated class does not have the structural methods so the processor rejects an interface that is also
+ *   annotated with {@link Structural}.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DefaultProxy {
+    
+}
@@ -0,0 +1,210 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+
+/**
+ * Default-method resolution table of an interface -- maps each method (by its name and parameter types) to 
+ *   the most specific default method that implements it.
+ * 
+ * The table is computed once per interface from the declared methods of the interface and all its super interfaces
+ *   so a resolution is a map lookup without any exception thrown and caught.
+ * As in the JLS, a default method is more specific than the default methods of the super interfaces of its
+ *   declaring interface (so the right default is picked in a diamond); when there are unrelated defaults, 
+ *   the one found first (depth first, in the declaration order of the super interfaces) is used.
+ * Unlike the JLS, an abstract re-declaration does not hide an inherited default 
+ *   -- a default proxy has nothing else to call.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class DefaultResolution {
+    
+    private static final ClassMetadata<DefaultResolution> resolutions = new ClassMetadata<>(DefaultResolution::new);
+    
+    private final Map<Key, Method> defaults;
+    
+    private final Map<MethodSignature, Class<?>> abstracts;
+    
+    private final List<Method> declarations;
+    
+    private DefaultResolution(Class<?> theInterface) {
+        val declarations = new LinkedHashMap<Key, List<Method>>();
+        collectDeclarations(theInterface, new HashSet<>(), declarations);
+        
+        val defaults  = new HashMap<Key, Method>();
+        val abstracts = new LinkedHashMap<MethodSignature, Class<?>>();
+        val all       = new ArrayList<Method>();
+        declarations.forEach((key, methods) -> {
+            all.addAll(methods);
+            val defaultMethod = mostSpecificDefault(methods);
+            if (defaultMethod != null) {
+                defaults.put(key, defaultMethod);
+            } else {
+                // The last one wins -- the declaration in the most super interface is reported.
+                for (Method method : methods)
+                    abstracts.put(MethodSignature.of(method), method.getDeclaringClass());
+            }
+        });
+        this.defaults     = defaults;
+        this.abstracts    = unmodifiableMap(abstracts);
+        this.declarations = unmodifiableList(all);
+    }
+    
+    /**
+     * Returns the resolution table of the given interface.
+     * 
+     * @param theInterface  the interface.
+     * @return  the resolution table.
+     */
+    static DefaultResolution of(Class<?> theInterface) {
+        return resolutions.get(theInterface);
+    }
+    
+    /**
+     * Returns the most specific default method for the given method -- by the table of its declaring interface.
+     * 
+     * @param method  the method.
+     * @return  the default method or {@code null} if there is none.
+     */
+    static Method defaultMethodOf(Method method) {
+        if (method.isDefault())
+            return method;
+        if (!method.getDeclaringClass().isInterface())
+            return null;
+        
+        return of(method.getDeclaringClass()).defaultOf(method);
+    }
+    
+    /**
+     * Returns the most specific default method of this interface for the given method.
+     * 
+     * @param method  the method -- declared by this interface or any other.
+     * @return  the default method or {@code null} if there is none.
+     */
+    Method defaultOf(Method method) {
+        return defaults.get(new Key(method));
+    }
+    
+    /** @return  the unmodifiable map of the signature of the methods with no default to its declaring interface. */
+    Map<MethodSignature, Class<?>> abstracts() {
+        return abstracts;
+    }
+    
+    /**
+     * @return  the unmodifiable list of the (non-static and non-private) methods declared by this interface and 
+     *            all its super interfaces -- the declarations of the same method are next to each other.
+     */
+    List<Method> declarations() {
+        return declarations;
+    }
+    
+    /**
+     * Returns the maximally specific ones of the given declarations of a method -- those not declared by 
+     *   a super interface of the declaring interface of another one.
+     * 
+     * @param methods  the declarations.
+     * @return  the maximally specific declarations in the given order.
+     */
+    static List<Method> maximallySpecific(List<Method> methods) {
+        val maximals = new ArrayList<Method>();
+        for (Method method : methods) {
+            if (!isShadowed(method, methods, false))
+                maximals.add(method);
+        }
+        return maximals;
+    }
+    
+    private static void collectDeclarations(Class<?> theInterface, Set<Class<?>> visited, Map<Key, List<Method>> declarations) {
+        if (!visited.add(theInterface))
+            return;
+        
+        for (Method method : theInterface.getDeclaredMethods()) {
+            val modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.isSynthetic())
+                continue;
+            
+            declarations.computeIfAbsent(new Key(method), __ -> new ArrayList<>()).add(method);
+        }
+        for (Class<?> superInterface : theInterface.getInterfaces())
+            collectDeclarations(superInterface, visited, declarations);
+    }
+    
+    private static Method mostSpecificDefault(List<Method> methods) {
+        for (Method method : methods) {
+            if (method.isDefault() && !isShadowed(method, methods, true))
+                return method;
+        }
+        return null;
+    }
+    
+    private static boolean isShadowed(Method method, List<Method> methods, boolean byDefaultOnly) {
+        val declaringClass = method.getDeclaringClass();
+        for (Method other : methods) {
+            val otherClass = other.getDeclaringClass();
+            if ((other.isDefault() || !byDefaultOnly) && (otherClass != declaringClass) && declaringClass.isAssignableFrom(otherClass))
+                return true;
+        }
+        return false;
+    }
+    
+    /** The name and the parameter types of a method -- the return type may be covariant. */
+    private static final class Key {
+        
+        private final String     name;
+        private final Class<?>[] parameterTypes;
+        private final int        hash;
+        
+        Key(Method method) {
+            this.name           = method.getName();
+            this.parameterTypes = method.getParameterTypes();
+            this.hash           = 31*name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            
+            val other = (Key)obj;
+            return (hash == other.hash)
+                && name.equals(other.name)
+                && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+    }
+    
+}
@@ -0,0 +1,80 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable sequence of well-spread non-negative hash codes for the proxies.
+ * 
+ * The ids come from striped counters -- the stripe {@code s} hands out {@code s, s + N, s + 2N, ...} 
+ *   where {@code N} is the number of stripes -- so threads rarely contend for the same counter.
+ * The ids are unique as long as no stripe hands out more than {@code 2^31 / N} of them; after that the id of 
+ *   the stripe wraps around and collides. As the threads are not spread evenly over the stripes, that can happen 
+ *   well before 2^31 proxies are created in total -- fine for hash codes, which do not have to be unique.
+ * The stripe is picked from the thread id; the counters are spaced apart to avoid false sharing.
+ * Each id is scrambled with a bijection so the hash codes look random but are still unique.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class HashSequence {
+    
+    private static final int STRIPES = stripeCount();
+    
+    private static final int STRIPE_MASK = STRIPES - 1;
+    
+    // 16 longs = 128 bytes between the counters -- more than a cache line.
+    private static final int SPACING = 16;
+    
+    private static final AtomicLongArray counters = new AtomicLongArray(STRIPES * SPACING);
+    
+    private HashSequence() {
+    }
+    
+    private static int stripeCount() {
+        int stripes = 1;
+        int target  = Runtime.getRuntime().availableProcessors() * 4;
+        while ((stripes < target) && (stripes < 1024))
+            stripes <<= 1;
+        return stripes;
+    }
+    
+    /**
+     * Returns the next hash code.
+     * 
+     * @return  the non-negative hash code.
+     */
+    static int next() {
+        int  stripe = stripeOf(Thread.currentThread().getId());
+        long count  = counters.getAndIncrement(stripe * SPACING);
+        long id     = count * STRIPES + stripe;
+        return scramble((int)id);
+    }
+    
+    private static int stripeOf(long threadId) {
+        long hash = threadId * 0x9E3779B97F4A7C15L;
+        return (int)(hash >>> 40) & STRIPE_MASK;
+    }
+    
+    // Bijective on the 31-bit non-negative ints: multiply by an odd number then xor-shift, both modulo 2^31.
+    static int scramble(int id) {
+        int value = (id * 0x2C1B3C6D) & Integer.MAX_VALUE;
+        value ^= value >>> 15;
+        value  = (value * 0x297A2D39) & Integer.MAX_VALUE;
+        value ^= value >>> 12;
+        return value;
+    }
+    
+}
@@ -0,0 +1,82 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * A call of a proxy method given to an {@link ProxyInterceptor.Around} interceptor.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class Invocation {
+    
+    private final MethodHandle next;
+    private final ProxyHandler handler;
+    private final Object       proxy;
+    private final Method       method;
+    private final Object[]     arguments;
+    
+    Invocation(MethodHandle next, ProxyHandler handler, Object proxy, Method method, Object[] arguments) {
+        this.next      = next;
+        this.handler   = handler;
+        this.proxy     = proxy;
+        this.method    = method;
+        this.arguments = arguments;
+    }
+    
+    /** @return  the proxy. */
+    public Object getProxy() {
+        return proxy;
+    }
+    
+    /** @return  the method. */
+    public Method getMethod() {
+        return method;
+    }
+    
+    /** @return  a copy of the arguments -- null if the method has no parameter. */
+    public Object[] getArguments() {
+        return (arguments != null) ? arguments.clone() : null;
+    }
+    
+    /**
+     * Call the next interceptor or the method itself with the original arguments -- can be called more than once.
+     * 
+     * @return  the result.
+     * @throws Throwable  any exception thrown.
+     */
+    public Object proceed() throws Throwable {
+        return (Object)next.invokeExact(handler, proxy, arguments);
+    }
+    
+    /**
+     * Call the next interceptor or the method itself with the given arguments -- can be called more than once.
+     * 
+     * @param arguments  the arguments.
+     * @return  the result.
+     * @throws Throwable  any exception thrown.
+     */
+    public Object proceed(Object[] arguments) throws Throwable {
+        return (Object)next.invokeExact(handler, proxy, arguments);
+    }
+    
+    @Override
+    public String toString() {
+        return "Invocation[" + method + "]";
+    }
+    
+}
@@ -0,0 +1,44 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a pure default method to have its results cached per proxy by a memoizing proxy.
+ * 
+ * A method without parameter is computed once per proxy. 
+ * The results of a method with parameters are cached per argument tuple -- up to {@link #maxSize()} entries 
+ *   per proxy with the least recently used evicted first.
+ * Exceptions are not cached. This annotation has no effect on non-memoizing proxies.
+ * 
+ * @see UProxy#createMemoizingDefaultProxy(Class, Class...)
+ * @see ProxyBuilder#memoize()
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Memoize {
+    
+    /** @return  the maximum number of the cached results per proxy -- for methods with parameters. */
+    int maxSize() default 64;
+    
+}
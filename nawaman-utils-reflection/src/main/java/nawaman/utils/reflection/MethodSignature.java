@@ -0,0 +1,110 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Signature of a method -- name, parameter types and return type (just like a JVM method descriptor).
+ * 
+ * The name is interned and the hash is precomputed so the signature is cheap to use as a map key.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class MethodSignature {
+    
+    private final String     name;
+    private final Class<?>[] parameterTypes;
+    private final Class<?>   returnType;
+    private final int        hash;
+    
+    private MethodSignature(String name, Class<?>[] parameterTypes, Class<?> returnType) {
+        this.name           = name.intern();
+        this.parameterTypes = parameterTypes;
+        this.returnType     = returnType;
+        this.hash           = (31*(31*this.name.hashCode() + Arrays.hashCode(parameterTypes))) + returnType.hashCode();
+    }
+    
+    /**
+     * Returns the signature of the given method.
+     * 
+     * @param method  the method.
+     * @return  the signature.
+     */
+    static MethodSignature of(Method method) {
+        return new MethodSignature(method.getName(), method.getParameterTypes(), method.getReturnType());
+    }
+    
+    /** @return  the method name. */
+    String name() {
+        return name;
+    }
+    
+    /** @return  the number of parameters. */
+    int parameterCount() {
+        return parameterTypes.length;
+    }
+    
+    /**
+     * Returns the parameter type at the index.
+     * 
+     * @param index  the index.
+     * @return  the parameter type.
+     */
+    Class<?> parameterType(int index) {
+        return parameterTypes[index];
+    }
+    
+    /** @return  the return type. */
+    Class<?> returnType() {
+        return returnType;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof MethodSignature))
+            return false;
+        
+        MethodSignature other = (MethodSignature)obj;
+        if ((hash != other.hash) || (name != other.name) || (returnType != other.returnType))
+            return false;
+        if (parameterTypes.length != other.parameterTypes.length)
+            return false;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] != other.parameterTypes[i])
+                return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the signature in the form of {@code name([class ParamType, ...]): class ReturnType}.
+     * 
+     * @return  the string representation of this signature.
+     */
+    @Override
+    public String toString() {
+        return name + "(" + Arrays.toString(parameterTypes) + "): " + returnType;
+    }
+    
+}
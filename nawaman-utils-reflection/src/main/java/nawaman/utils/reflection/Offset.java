@@ -0,0 +1,43 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a getter of a buffer view interface with the byte offset of its value within a record.
+ * 
+ * The getter must not have a parameter and must return a primitive -- 
+ *   a {@code boolean} is a byte that is not zero.
+ * The value is read in the byte order of the buffer.
+ * 
+ * @see UProxy#createBufferView(Class, java.nio.ByteBuffer)
+ * @see BufferView
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Offset {
+    
+    /** @return  the offset of the value from the start of the record in bytes. */
+    int value();
+    
+}
@@ -0,0 +1,79 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report of a warm-up of the proxies -- see {@link UProxy#prepare(Class...)}.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class PrepareReport {
+    
+    private final long elapsedNanos;
+    
+    private final Map<Class<?>, Long> timings;
+    
+    private final Map<Class<?>, Map<String, String>> nonDefaultInterfaces;
+    
+    private final Map<String, Throwable> failures;
+    
+    PrepareReport(long elapsedNanos, Map<Class<?>, Long> timings, Map<Class<?>, Map<String, String>> nonDefaultInterfaces, Map<String, Throwable> failures) {
+        this.elapsedNanos         = elapsedNanos;
+        this.timings              = unmodifiableMap(timings);
+        this.nonDefaultInterfaces = unmodifiableMap(nonDefaultInterfaces);
+        this.failures             = unmodifiableMap(failures);
+    }
+    
+    /** @return  the wall-clock time of the whole preparation in nanoseconds. */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /** @return  the time (in nanoseconds) each prepared interface took. */
+    public Map<Class<?>, Long> getTimings() {
+        return timings;
+    }
+    
+    /** @return  the interfaces that are not default interfaces mapped to their non-default methods (as {@link UProxy#getNonDefaultMethods(Class)}). */
+    public Map<Class<?>, Map<String, String>> getNonDefaultInterfaces() {
+        return nonDefaultInterfaces;
+    }
+    
+    /** @return  the names of the interfaces (or classes found by the scanning) that failed to prepare mapped to the failure. */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+    
+    /** @return  {@code true} if all the interfaces are prepared and are default interfaces. */
+    public boolean isAllDefault() {
+        return nonDefaultInterfaces.isEmpty() && failures.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "PrepareReport["
+                + "interfaces=" + timings.size() + ", "
+                + "nonDefault=" + nonDefaultInterfaces.size() + ", "
+                + "failures=" + failures.size() + ", "
+                + "elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+                + "]";
+    }
+    
+}
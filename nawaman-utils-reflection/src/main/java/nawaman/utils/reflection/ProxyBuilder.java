@@ -0,0 +1,443 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodType.genericMethodType;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.val;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Builder of dynamic proxies that call the default methods and the given functions for the other methods.
+ * 
+ * Each function is adapted into a method handle once when the factory is built;
+ *   the proxy then dispatches to it directly from its dispatch table -- no reflective call.
+ * 
+ * A function can be any functional interface object whose single abstract method takes either
+ *   the same parameters as the method or the proxy object followed by those parameters. For example:
+ * <pre>
+ * val greeter = UProxy.builder(Greeter.class)
+ *         .implement("name",  (Supplier<String>)() -&gt; "World")
+ *         .implement("greet", (BiFunction&lt;Greeter, String, String&gt;)(self, greeting) -&gt; greeting + " " + self.name())
+ *         .build();
+ * </pre>
+ * 
+ * @param <OBJECT>  the main interface type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class ProxyBuilder<OBJECT> {
+    
+    private final Class<OBJECT> theInterface;
+    
+    private Class<?>[] additionalInterfaces = new Class<?>[0];
+    
+    private final List<Implementation> implementations = new ArrayList<>();
+    
+    private Executor asyncExecutor = null;
+    
+    private boolean isMemoizing = false;
+    
+    private final List<Interception> interceptions = new ArrayList<>();
+    
+    ProxyBuilder(@NonNull Class<OBJECT> theInterface) {
+        if (!theInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theInterface);
+        
+        this.theInterface = theInterface;
+    }
+    
+    /**
+     * Add additional interfaces for the proxy to implement.
+     * 
+     * @param additionalInterfaces  the additional interfaces.
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> withInterfaces(@NonNull Class<?> ... additionalInterfaces) {
+        this.additionalInterfaces = additionalInterfaces.clone();
+        return this;
+    }
+    
+    /**
+     * Implement the method with the given name with the function.
+     * 
+     * If the method is overloaded, the one with the parameter count that matches the function is used.
+     * 
+     * @param methodName  the method name.
+     * @param function    the function -- an instance of a functional interface.
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> implement(@NonNull String methodName, @NonNull Object function) {
+        implementations.add(new Implementation(methodName, null, function));
+        return this;
+    }
+    
+    /**
+     * Implement the given method with the function.
+     * 
+     * @param method    the method.
+     * @param function  the function -- an instance of a functional interface.
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> implement(@NonNull Method method, @NonNull Object function) {
+        implementations.add(new Implementation(method.getName(), method, function));
+        return this;
+    }
+    
+    /**
+     * Run the default methods that return a future ({@link java.util.concurrent.CompletableFuture}, 
+     *   {@link java.util.concurrent.CompletionStage} or {@link java.util.concurrent.Future}) on the default 
+     *   asynchronous executor -- see {@link UProxy#defaultAsyncExecutor()}.
+     * 
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> async() {
+        return async(UProxy.defaultAsyncExecutor());
+    }
+    
+    /**
+     * Run the default methods that return a future ({@link java.util.concurrent.CompletableFuture}, 
+     *   {@link java.util.concurrent.CompletionStage} or {@link java.util.concurrent.Future}) on the given executor.
+     * 
+     * The proxy returns a {@link java.util.concurrent.CompletableFuture} right away instead of running 
+     *   the method on the caller thread. Methods implemented with functions are not affected.
+     * 
+     * @param executor  the executor.
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> async(@NonNull Executor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+    
+    /**
+     * Cache the results of the default methods annotated with {@link Memoize} per proxy.
+     * 
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> memoize() {
+        this.isMemoizing = true;
+        return this;
+    }
+    
+    /**
+     * Call the interceptor before each of the methods that match.
+     * 
+     * The interceptors are composed into the action of each matching method once when the factory is built
+     *   so a call goes straight through them; the methods that match no interceptor are not affected.
+     * The interceptors added first are the outer ones.
+     * 
+     * @param matcher      the matcher of the methods to intercept.
+     * @param interceptor  the interceptor.
+     * @return  this builder.
+     */
+    public ProxyBuilder<OBJECT> before(@NonNull Predicate<Method> matcher, @NonNull ProxyInterceptor.Before interceptor) {
+        interceptions.add(new Interception(matcher, insertArguments(BEFORE, 0, interceptor)));
+        return this;
+    }
+    
+    /**
+     * Call the interceptor after each of the methods that match returns -- the interceptor can replace the result.
+     * 
+     * @param matcher      the matcher of the methods to intercept.
+     * @param interceptor  the interceptor.
+     * @return  this builder.
+     * 
+     * @see #before(Predicate, ProxyInterceptor.Before)
+     */
+    public ProxyBuilder<OBJECT> after(@NonNull Predicate<Method> matcher, @NonNull ProxyInterceptor.After interceptor) {
+        interceptions.add(new Interception(matcher, insertArguments(AFTER, 0, interceptor)));
+        return this;
+    }
+    
+    /**
+     * Call the interceptor instead of each of the methods that match -- the interceptor proceeds with the call.
+     * 
+     * @param matcher      the matcher of the methods to intercept.
+     * @param interceptor  the interceptor.
+     * @return  this builder.
+     * 
+     * @see #before(Predicate, ProxyInterceptor.Before)
+     */
+    public ProxyBuilder<OBJECT> around(@NonNull Predicate<Method> matcher, @NonNull ProxyInterceptor.Around interceptor) {
+        interceptions.add(new Interception(matcher, insertArguments(AROUND, 0, interceptor)));
+        return this;
+    }
+    
+    /**
+     * Build the factory for the proxies.
+     * 
+     * @return  the factory.
+     */
+    public ProxyFactory<OBJECT> toFactory() {
+        val interfaces = UProxy.prepareInterfaces(theInterface, additionalInterfaces);
+        val methods    = interfaceMethods(interfaces);
+        val overrides  = new LinkedHashMap<Method, MethodHandle>();
+        for (Implementation implementation : implementations) {
+            val function = FunctionHandle.of(implementation.function);
+            val method   = implementation.resolve(methods, function.parameterCount());
+            overrides.put(method, function.adaptTo(method));
+        }
+        val executor      = asyncExecutor;
+        val isMemoizing   = this.isMemoizing;
+        val interceptions = new ArrayList<Interception>(this.interceptions);
+        return new ProxyFactory<OBJECT>(theInterface, interfaces, dispatch -> {
+            val asyncDispatch = (executor != null) ? dispatch.async(executor) : dispatch;
+            val memoDispatch  = isMemoizing ? asyncDispatch.memoize() : asyncDispatch;
+            val implemented   = memoDispatch.override(overrides);
+            return interceptions.isEmpty() ? implemented : implemented.wrap((method, action) -> intercept(interceptions, method, action));
+        });
+    }
+    
+    /**
+     * Build a proxy.
+     * 
+     * @return  the newly created dynamic proxy.
+     */
+    public OBJECT build() {
+        return toFactory().create();
+    }
+    
+    private static MethodHandle intercept(List<Interception> interceptions, Method method, MethodHandle action) {
+        MethodHandle intercepted = action;
+        for (int i = interceptions.size() - 1; i >= 0; i--) {
+            val interception = interceptions.get(i);
+            if (interception.matcher.test(method))
+                intercepted = interception.wrap(method, intercepted);
+        }
+        return intercepted;
+    }
+    
+    private static List<Method> interfaceMethods(Class<?>[] interfaces) {
+        val methods = new ArrayList<Method>();
+        for (Class<?> each : interfaces) {
+            for (Method method : each.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()))
+                    methods.add(method);
+            }
+        }
+        return methods;
+    }
+    
+    //== Interceptors ==
+    
+    private static final MethodHandle BEFORE;
+    private static final MethodHandle AFTER;
+    private static final MethodHandle AROUND;
+    static {
+        try {
+            val lookup = MethodHandles.lookup();
+            BEFORE = lookup.findStatic(ProxyBuilder.class, "before", methodType(void.class,   ProxyInterceptor.Before.class, Method.class, ProxyHandler.class, Object.class, Object[].class));
+            AFTER  = lookup.findStatic(ProxyBuilder.class, "after",  methodType(Object.class, ProxyInterceptor.After.class,  Method.class, Object.class, ProxyHandler.class, Object.class, Object[].class));
+            AROUND = lookup.findStatic(ProxyBuilder.class, "around", methodType(Object.class, ProxyInterceptor.Around.class, Method.class, MethodHandle.class, ProxyHandler.class, Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    @SuppressWarnings("unused")
+    private static void before(ProxyInterceptor.Before interceptor, Method method, ProxyHandler handler, Object proxy, Object[] args) throws Throwable {
+        interceptor.before(proxy, method, args);
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object after(ProxyInterceptor.After interceptor, Method method, Object result, ProxyHandler handler, Object proxy, Object[] args) throws Throwable {
+        return interceptor.after(proxy, method, args, result);
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object around(ProxyInterceptor.Around interceptor, Method method, MethodHandle next, ProxyHandler handler, Object proxy, Object[] args) throws Throwable {
+        return interceptor.around(new Invocation(next, handler, proxy, method, args));
+    }
+    
+    /** An interceptor (its handle bound to the interceptor object) and the methods it applies to. */
+    private static final class Interception {
+        
+        private final Predicate<Method> matcher;
+        private final MethodHandle      handle;
+        
+        Interception(Predicate<Method> matcher, MethodHandle handle) {
+            this.matcher = matcher;
+            this.handle  = handle;
+        }
+        
+        MethodHandle wrap(Method method, MethodHandle action) {
+            val bound = insertArguments(handle, 0, method);
+            val kind  = bound.type();
+            if (kind.returnType() == void.class)
+                // before: (handler, proxy, args)void folded in front of the action.
+                return foldArguments(action, bound);
+            if (kind.parameterType(0) == MethodHandle.class)
+                // around: the action is the next in the chain.
+                return insertArguments(bound, 0, action);
+            // after: the action result is folded into the first parameter.
+            return foldArguments(bound, action);
+        }
+    }
+    
+    private static final class Implementation {
+        
+        private final String methodName;
+        private final Method method;
+        private final Object function;
+        
+        Implementation(String methodName, Method method, Object function) {
+            this.methodName = methodName;
+            this.method     = method;
+            this.function   = function;
+        }
+        
+        Method resolve(List<Method> methods, int functionParamCount) {
+            if (method != null) {
+                if (!methods.contains(method))
+                    throw new IllegalArgumentException("The method is not from the proxy interfaces: " + method);
+                return method;
+            }
+            
+            val matches = methods.stream()
+                    .filter(each -> each.getName().equals(methodName))
+                    .filter(each -> (each.getParameterCount() == functionParamCount) 
+                                 || (each.getParameterCount() == functionParamCount - 1))
+                    .map(each -> each.getName() + Arrays.toString(each.getParameterTypes()))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (matches.isEmpty())
+                throw new IllegalArgumentException("No method matches: " + methodName + " with " + function);
+            if (matches.size() != 1)
+                throw new IllegalArgumentException("Ambiguous method: " + methodName + " -- " + matches);
+            
+            val signature = matches.get(0);
+            return methods.stream()
+                    .filter(each -> signature.equals(each.getName() + Arrays.toString(each.getParameterTypes())))
+                    .findFirst()
+                    .get();
+        }
+    }
+    
+    /**
+     * Method handle of the single abstract method of a functional object -- bound to the object.
+     **/
+    static final class FunctionHandle {
+        
+        private final Object       function;
+        private final MethodHandle handle;
+        
+        private FunctionHandle(Object function, MethodHandle handle) {
+            this.function = function;
+            this.handle   = handle;
+        }
+        
+        static FunctionHandle of(Object function) {
+            val functionalMethod = findFunctionalMethod(function.getClass());
+            if (functionalMethod == null)
+                throw new IllegalArgumentException("Functional interface object is required: " + function);
+            
+            val functionalInterface = functionalMethod.getDeclaringClass();
+            try {
+                val lookup = Modifier.isPublic(functionalInterface.getModifiers())
+                           ? MethodHandles.publicLookup()
+                           : DefaultMethodInvoker.lookupFor(functionalInterface);
+                val handle = lookup.unreflect(functionalMethod).bindTo(function);
+                return new FunctionHandle(function, handle);
+            } catch (IllegalAccessException e) {
+                throw new UReflectionException("Unable to access the function: " + function, e);
+            }
+        }
+        
+        int parameterCount() {
+            return handle.type().parameterCount();
+        }
+        
+        /**
+         * Adapt the function to an action of the given method -- see {@link ProxyDispatch#ACTION_TYPE}.
+         **/
+        MethodHandle adaptTo(Method method) {
+            val paramCount = method.getParameterCount();
+            val methodType = methodType(method.getReturnType(), method.getParameterTypes());
+            val withSelf   = (parameterCount() == paramCount + 1);
+            if (!withSelf && (parameterCount() != paramCount))
+                throw new IllegalArgumentException("The function " + function + " does not match the method: " + method);
+            
+            try {
+                val typed  = withSelf
+                           ? handle.asType(methodType.insertParameterTypes(0, method.getDeclaringClass()))
+                           : dropArguments(handle.asType(methodType), 0, Object.class);
+                val spread = typed
+                        .asType(genericMethodType(paramCount + 1))
+                        .asSpreader(Object[].class, paramCount);
+                return dropArguments(spread, 0, ProxyHandler.class);
+            } catch (IllegalArgumentException | WrongMethodTypeException e) {
+                throw new IllegalArgumentException("The function " + function + " does not match the method: " + method, e);
+            }
+        }
+        
+        private static Method findFunctionalMethod(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Class<?> each : current.getInterfaces()) {
+                    val functionalMethod = functionalMethodOf(each);
+                    if (functionalMethod != null)
+                        return functionalMethod;
+                }
+            }
+            return null;
+        }
+        
+        static Method functionalMethodOf(Class<?> theInterface) {
+            Method found = null;
+            for (Method method : theInterface.getMethods()) {
+                if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method))
+                    continue;
+                if ((found != null) && !isSameSignature(found, method))
+                    return null;
+                found = method;
+            }
+            return found;
+        }
+        
+        private static boolean isSameSignature(Method method1, Method method2) {
+            return method1.getName().equals(method2.getName())
+                && Arrays.equals(method1.getParameterTypes(), method2.getParameterTypes());
+        }
+        
+        private static boolean isObjectMethod(Method method) {
+            try {
+                Object.class.getMethod(method.getName(), method.getParameterTypes());
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,573 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.filterArguments;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Collections.unmodifiableMap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.common.IdentityMap;
+import nawaman.utils.common.LruCache;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Dispatch table of a default proxy class -- maps each method to a pre-resolved action.
+ * 
+ * The table is computed once per proxy class (that is once per interface set).
+ * Each action is a method handle of the type {@link #ACTION_TYPE}.
+ * The lookup is done by identity of the method object as the proxy class always passes the same method objects;
+ *   the identity entries are learnt on the first call of each method.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class ProxyDispatch {
+    
+    /** The type of an action: (ProxyHandler handler, Object proxy, Object[] args)Object. */
+    static final MethodType ACTION_TYPE = methodType(Object.class, ProxyHandler.class, Object.class, Object[].class);
+    
+    private static final ClassMetadata<ProxyDispatch> dispatches
+            = new ClassMetadata<>(proxyClass -> new ProxyDispatch(proxyClass.getInterfaces()));
+    
+    /** Marker of a cached null result of a memoized method. */
+    private static final Object NULL = new Object();
+    
+    /** Room for the method objects of the proxy class and a few copies -- see {@link #actionFor(Method)}. */
+    private static final int MAX_IDENTITY_ACTIONS_PER_ACTION = 2;
+    
+    private static final MethodHandle toString;
+    private static final MethodHandle hashCode;
+    private static final MethodHandle equals;
+    private static final MethodHandle _toString;
+    private static final MethodHandle _hashCode;
+    private static final MethodHandle _equals;
+    private static final MethodHandle notDefault;
+    private static final MethodHandle async;
+    private static final MethodHandle memoized;
+    private static final MethodHandle memoizedArgs;
+    private static final MethodHandle target;
+    static {
+        try {
+            val lookup = MethodHandles.lookup();
+            toString   = lookup.findStatic(ProxyDispatch.class, "toString",   ACTION_TYPE);
+            hashCode   = lookup.findStatic(ProxyDispatch.class, "hashCode",   ACTION_TYPE);
+            equals     = lookup.findStatic(ProxyDispatch.class, "equals",     ACTION_TYPE);
+            _toString  = lookup.findStatic(ProxyDispatch.class, "_toString",  ACTION_TYPE);
+            _hashCode  = lookup.findStatic(ProxyDispatch.class, "_hashCode",  ACTION_TYPE);
+            _equals    = lookup.findStatic(ProxyDispatch.class, "_equals",    ACTION_TYPE);
+            notDefault = lookup.findStatic(ProxyDispatch.class, "notDefault", ACTION_TYPE.insertParameterTypes(0, Method.class));
+            async      = lookup.findStatic(ProxyDispatch.class, "async",      ACTION_TYPE.insertParameterTypes(0, MethodHandle.class, Executor.class));
+            memoized     = lookup.findStatic(ProxyDispatch.class, "memoized",     ACTION_TYPE.insertParameterTypes(0, MethodHandle.class, int.class));
+            memoizedArgs = lookup.findStatic(ProxyDispatch.class, "memoizedArgs", ACTION_TYPE.insertParameterTypes(0, MethodHandle.class, int.class, int.class));
+            target       = lookup.findVirtual(ProxyHandler.class, "target", methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    private final String simpleName;
+    
+    private final boolean isWithToStringHashCodeEquals;
+    
+    private final StructuralLayout structural;
+    
+    private final Map<Method, MethodHandle> actions;
+    
+    private final int memoSlotCount;
+    
+    private final IdentityMap<Method, MethodHandle> identityActions = new IdentityMap<>();
+    
+    private ProxyDispatch(Class<?>[] interfaces) {
+        this.simpleName                   = interfaces[0].getSimpleName();
+        this.isWithToStringHashCodeEquals = hasWithToStringHashCodeEquals(interfaces);
+        this.structural                   = interfaces[0].isAnnotationPresent(Structural.class) ? StructuralLayout.of(interfaces[0]) : null;
+        this.actions                      = prepareActions(interfaces, isWithToStringHashCodeEquals, structural);
+        this.memoSlotCount                = 0;
+    }
+    
+    private ProxyDispatch(ProxyDispatch base, Map<Method, MethodHandle> actions) {
+        this(base, actions, base.memoSlotCount);
+    }
+    
+    private ProxyDispatch(ProxyDispatch base, Map<Method, MethodHandle> actions, int memoSlotCount) {
+        this.simpleName                   = base.simpleName;
+        this.isWithToStringHashCodeEquals = base.isWithToStringHashCodeEquals;
+        this.structural                   = base.structural;
+        this.actions                      = actions;
+        this.memoSlotCount                = memoSlotCount;
+    }
+    
+    /**
+     * Returns the dispatch table for the given proxy class.
+     * 
+     * @param proxyClass  the proxy class.
+     * @return  the dispatch table.
+     */
+    static ProxyDispatch of(Class<?> proxyClass) {
+        return dispatches.get(proxyClass);
+    }
+    
+    /**
+     * Returns a new dispatch table with the actions of the methods with the same name and parameter types
+     *   as the given ones replaced.
+     * 
+     * @param overrides  the actions (of the type {@link #ACTION_TYPE}) to replace.
+     * @return  the new dispatch table.
+     */
+    ProxyDispatch override(Map<Method, MethodHandle> overrides) {
+        val newActions = new HashMap<Method, MethodHandle>(actions);
+        overrides.forEach((overrideMethod, action) -> {
+            newActions.replaceAll((method, existing) -> isSameSignature(method, overrideMethod) ? action : existing);
+            newActions.putIfAbsent(overrideMethod, action);
+        });
+        return new ProxyDispatch(this, newActions);
+    }
+    
+    /**
+     * Returns a new dispatch table with each action replaced by what the wrapper returns for it.
+     * 
+     * @param wrapper  the wrapper -- takes the method and its action and returns the new action 
+     *                   (of the type {@link #ACTION_TYPE}) or the same action to keep it.
+     * @return  the new dispatch table.
+     */
+    ProxyDispatch wrap(BiFunction<Method, MethodHandle, MethodHandle> wrapper) {
+        val newActions = new HashMap<Method, MethodHandle>(actions);
+        newActions.replaceAll(wrapper);
+        return new ProxyDispatch(this, newActions);
+    }
+    
+    /**
+     * Returns a new dispatch table with the default methods that return a future run asynchronously on the executor.
+     * 
+     * A default method returns a future if its return type is {@link CompletableFuture}, {@link CompletionStage} or 
+     *   {@link Future}. The proxy returns a {@link CompletableFuture} right away that completes with the result of 
+     *   the future the default method returns (or the exception it throws).
+     * 
+     * @param executor  the executor.
+     * @return  the new dispatch table.
+     */
+    ProxyDispatch async(Executor executor) {
+        val newActions = new HashMap<Method, MethodHandle>(actions);
+        newActions.replaceAll((method, action) -> {
+            if (!isFutureMethod(method) || (DefaultMethodInvoker.ofOrNull(method) == null))
+                return action;
+            return insertArguments(async, 0, action, executor);
+        });
+        return new ProxyDispatch(this, newActions);
+    }
+    
+    /**
+     * Returns a new dispatch table with the results of the default methods annotated with {@link Memoize} cached
+     *   per proxy.
+     * 
+     * Each memoized method gets a slot in the per-proxy slot array (see {@link ProxyHandler#memoSlots()}).
+     * The slot of a method without parameter holds the result itself so a cached call is a single volatile read.
+     * The slot of a method with parameters holds a bounded LRU cache of the results by the arguments.
+     * 
+     * @return  the new dispatch table.
+     */
+    ProxyDispatch memoize() {
+        val newActions = new HashMap<Method, MethodHandle>(actions);
+        val slots      = new HashMap<MethodSignature, Integer>();
+        newActions.replaceAll((method, action) -> {
+            val memoize = method.getAnnotation(Memoize.class);
+            if ((memoize == null) || (method.getReturnType() == void.class) || (DefaultMethodInvoker.ofOrNull(method) == null))
+                return action;
+            
+            val slot = slots.computeIfAbsent(MethodSignature.of(method), __ -> memoSlotCount + slots.size());
+            return (method.getParameterCount() == 0)
+                    ? insertArguments(memoized,     0, action, slot)
+                    : insertArguments(memoizedArgs, 0, action, slot, Math.max(1, memoize.maxSize()));
+        });
+        return new ProxyDispatch(this, newActions, memoSlotCount + slots.size());
+    }
+    
+    /**
+     * Returns a new dispatch table with the abstract methods delegated to the target of the proxy 
+     *   (see {@link ProxyHandler#target()}).
+     * 
+     * Each abstract method is bound to the public method of the target class with the same name and parameter types
+     *   (and a compatible return type) once here so a call is a direct method handle call on the target.
+     * The default methods and the {@code Object} methods are kept.
+     * 
+     * @param targetClass  the class of the targets.
+     * @return  the new dispatch table.
+     * @throws IllegalArgumentException  if the target class does not implement any of the abstract methods.
+     */
+    ProxyDispatch delegate(Class<?> targetClass) {
+        val newActions = new HashMap<Method, MethodHandle>(actions);
+        newActions.replaceAll((method, action) -> {
+            if (isObjectMethod(method) || (DefaultMethodInvoker.ofOrNull(method) != null))
+                return action;
+            
+            val handle = targetHandleOf(targetClass, method);
+            if (handle == null)
+                throw new IllegalArgumentException("Implementation of the method is required: " + method + " in " + targetClass);
+            
+            val type    = methodType(method.getReturnType(), method.getParameterTypes()).insertParameterTypes(0, Object.class);
+            val generic = handle.asType(type).asType(type.generic())
+                                .asSpreader(Object[].class, method.getParameterCount());
+            return filterArguments(dropArguments(generic, 1, Object.class), 0, target);
+        });
+        return new ProxyDispatch(this, newActions);
+    }
+    
+    private static MethodHandle targetHandleOf(Class<?> targetClass, Method method) {
+        final Method targetMethod;
+        try {
+            targetMethod = targetClass.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (Modifier.isStatic(targetMethod.getModifiers()) || Modifier.isAbstract(targetMethod.getModifiers()))
+            return null;
+        if ((method.getReturnType() != void.class) && !method.getReturnType().isAssignableFrom(targetMethod.getReturnType()))
+            return null;
+        
+        try {
+            return MethodHandles.publicLookup().unreflect(targetMethod);
+        } catch (IllegalAccessException e) {
+            // The target class is not public (for example, a lambda or an anonymous class).
+            try {
+                return DefaultMethodInvoker.lookupFor(targetMethod.getDeclaringClass()).unreflect(targetMethod);
+            } catch (IllegalAccessException | RuntimeException e2) {
+                throw new UReflectionException(e2);
+            }
+        }
+    }
+    
+    /** @return  the number of the memoization slots each proxy needs. */
+    int memoSlotCount() {
+        return memoSlotCount;
+    }
+    
+    private static boolean isFutureMethod(Method method) {
+        val returnType = method.getReturnType();
+        return (returnType == CompletableFuture.class)
+            || (returnType == CompletionStage.class)
+            || (returnType == Future.class);
+    }
+    
+    /**
+     * Returns the action of each of the known methods.
+     * 
+     * @return  the unmodifiable map of the method to its action.
+     */
+    Map<Method, MethodHandle> actions() {
+        return unmodifiableMap(actions);
+    }
+    
+    private static boolean isSameSignature(Method method1, Method method2) {
+        return method1.getName().equals(method2.getName())
+            && Arrays.equals(method1.getParameterTypes(), method2.getParameterTypes());
+    }
+    
+    /** @return  the simple name of the main interface. */
+    String simpleName() {
+        return simpleName;
+    }
+    
+    /**
+     * Returns the action for the given method.
+     * 
+     * The actions are looked up by the identity of the method object as the proxy class always passes the same ones.
+     * Other copies of the known methods are found by equality but only a bounded number of them are kept;
+     *   the other methods are resolved every time.
+     * 
+     * @param method  the method.
+     * @return  the action handle.
+     */
+    MethodHandle actionFor(Method method) {
+        val action = identityActions.get(method);
+        if (action != null) {
+            if (ProxyMetrics.ENABLED)
+                ProxyMetrics.cacheHit(ProxyMetrics.Cache.DISPATCH);
+            return action;
+        }
+        
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.cacheMiss(ProxyMetrics.Cache.DISPATCH);
+        return learn(method);
+    }
+    
+    /** @return  the number of the method objects that the actions are kept for by identity. */
+    int identityActionCount() {
+        return identityActions.size();
+    }
+    
+    private MethodHandle learn(Method method) {
+        val known = actions.get(method);
+        if (known == null) {
+            // Not a method of the interfaces -- e.g., the handler is called directly; resolve it but do not keep it.
+            return actionOf(method, null, isWithToStringHashCodeEquals, structural);
+        }
+        
+        // Copies (e.g., from getMethod(...) every time) are served by equality but do not grow the table forever.
+        if (identityActions.size() >= MAX_IDENTITY_ACTIONS_PER_ACTION*actions.size())
+            return known;
+        
+        val existing = identityActions.putIfAbsent(method, known);
+        return (existing != null) ? existing : known;
+    }
+    
+    private static Map<Method, MethodHandle> prepareActions(Class<?>[] interfaces, boolean isWithToStringHashCodeEquals,
+                                                            StructuralLayout structural) {
+        val actions = new HashMap<Method, MethodHandle>();
+        for (Method method : Object.class.getMethods()) {
+            if (isObjectMethod(method))
+                actions.put(method, actionOf(method, null, isWithToStringHashCodeEquals, structural));
+        }
+        for (Class<?> theInterface : interfaces) {
+            val resolution = DefaultResolution.of(theInterface);
+            for (Method method : theInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers()))
+                    continue;
+                actions.putIfAbsent(method, actionOf(method, resolution, isWithToStringHashCodeEquals, structural));
+            }
+        }
+        return actions;
+    }
+    
+    private static boolean hasWithToStringHashCodeEquals(Class<?>[] interfaces) {
+        for (Class<?> theInterface : interfaces) {
+            if (WithToStringHashCodeEquals.class.isAssignableFrom(theInterface))
+                return true;
+        }
+        return false;
+    }
+    
+    private static MethodHandle actionOf(Method method, DefaultResolution resolution, boolean isWithToStringHashCodeEquals,
+                                         StructuralLayout structural) {
+        if (isObjectMethod(method)) {
+            if (structural != null)
+                return structural.actionOf(method);
+            
+            switch (method.getName()) {
+            case "toString": return isWithToStringHashCodeEquals ? _toString : toString;
+            case "hashCode": return isWithToStringHashCodeEquals ? _hashCode : hashCode;
+            case "equals":   return isWithToStringHashCodeEquals ? _equals   : equals;
+            }
+        }
+        // Resolve by the proxy interface (when known) so the most specific default of the whole interface is used.
+        val defaultMethod = (resolution != null) ? resolution.defaultOf(method) : null;
+        val invoker       = DefaultMethodInvoker.ofOrNull((defaultMethod != null) ? defaultMethod : method);
+        if (invoker == null)
+            return insertArguments(notDefault, 0, method);
+        
+        return dropArguments(invoker.invoker(), 0, ProxyHandler.class);
+    }
+    
+    /**
+     * Check if the given method is (or re-declares) {@code toString()}, {@code hashCode()} or {@code equals(Object)}.
+     * 
+     * @param method  the method.
+     * @return  {@code true} if the method is one of those methods.
+     */
+    static boolean isObjectMethod(Method method) {
+        val name  = method.getName();
+        val count = method.getParameterCount();
+        if ("toString".equals(name) || "hashCode".equals(name))
+            return count == 0;
+        if ("equals".equals(name))
+            return (count == 1) && (method.getParameterTypes()[0] == Object.class);
+        return false;
+    }
+    
+    //== Actions ==
+    
+    @SuppressWarnings("unused")
+    private static Object toString(ProxyHandler handler, Object proxy, Object[] args) {
+        return handler.toString();
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object hashCode(ProxyHandler handler, Object proxy, Object[] args) {
+        return handler.hashCode();
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object equals(ProxyHandler handler, Object proxy, Object[] args) {
+        return proxy == args[0];
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object _toString(ProxyHandler handler, Object proxy, Object[] args) {
+        return ((WithToStringHashCodeEquals)proxy)._toString();
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object _hashCode(ProxyHandler handler, Object proxy, Object[] args) {
+        return ((WithToStringHashCodeEquals)proxy)._hashCode();
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object _equals(ProxyHandler handler, Object proxy, Object[] args) {
+        return ((WithToStringHashCodeEquals)proxy)._equals(args[0]);
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object async(MethodHandle action, Executor executor, ProxyHandler handler, Object proxy, Object[] args) {
+        val future = new CompletableFuture<Object>();
+        try {
+            executor.execute(() -> {
+                try {
+                    val result = (Object)action.invokeExact(handler, proxy, args);
+                    completeWith(future, result);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // For example, RejectedExecutionException.
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    private static void completeWith(CompletableFuture<Object> future, Object result) throws InterruptedException {
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>)result).whenComplete((value, exception) -> {
+                if (exception != null)
+                     future.completeExceptionally(exception);
+                else future.complete(value);
+            });
+        } else if (result instanceof Future) {
+            try {
+                future.complete(((Future<?>)result).get());
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            }
+        } else {
+            future.complete(result);
+        }
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object memoized(MethodHandle action, int slot, ProxyHandler handler, Object proxy, Object[] args) throws Throwable {
+        val slots  = handler.memoSlots();
+        val cached = slots.get(slot);
+        if (cached != null)
+            return (cached != NULL) ? cached : null;
+        
+        val result = (Object)action.invokeExact(handler, proxy, args);
+        // The first result wins so all callers see the same object.
+        slots.compareAndSet(slot, null, (result != null) ? result : NULL);
+        val stored = slots.get(slot);
+        return (stored != NULL) ? stored : null;
+    }
+    
+    @SuppressWarnings({ "unused", "unchecked" })
+    private static Object memoizedArgs(MethodHandle action, int slot, int maxSize, ProxyHandler handler, Object proxy, Object[] args) throws Throwable {
+        val slots = handler.memoSlots();
+        Object cache = slots.get(slot);
+        if (cache == null) {
+            slots.compareAndSet(slot, null, new LruCache<ArgumentsKey, Object>(maxSize));
+            cache = slots.get(slot);
+        }
+        
+        val memoCache = (LruCache<ArgumentsKey, Object>)cache;
+        val key       = new ArgumentsKey(args);
+        val cached    = memoCache.get(key);
+        if (cached != null)
+            return (cached != NULL) ? cached : null;
+        
+        val result = (Object)action.invokeExact(handler, proxy, args);
+        memoCache.put(key.copy(), (result != null) ? result : NULL);
+        return result;
+    }
+    
+    /**
+     * The arguments of a call as a cache key -- array arguments are compared by their content.
+     * 
+     * A key to look up holds the arguments as they are; the key that is stored is a {@link #copy()} 
+     *   so the caller mutating an array argument later does not change the stored key (and so its hash).
+     */
+    private static final class ArgumentsKey {
+        
+        private final Object[] args;
+        private final int      hash;
+        
+        ArgumentsKey(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+        
+        /** @return  a key with the arguments and the arrays in them (deeply) copied. */
+        ArgumentsKey copy() {
+            return new ArgumentsKey((Object[])copyOf(args));
+        }
+        
+        private static Object copyOf(Object value) {
+            if ((value == null) || !value.getClass().isArray())
+                return value;
+            
+            val length = Array.getLength(value);
+            val copy   = Array.newInstance(value.getClass().getComponentType(), length);
+            if (value instanceof Object[]) {
+                val values = (Object[])value;
+                val copies = (Object[])copy;
+                for (int i = 0; i < length; i++)
+                    copies[i] = copyOf(values[i]);
+            } else {
+                System.arraycopy(value, 0, copy, 0, length);
+            }
+            return copy;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this)
+                return true;
+            if (!(obj instanceof ArgumentsKey))
+                return false;
+            
+            val other = (ArgumentsKey)obj;
+            return (hash == other.hash) && Arrays.deepEquals(args, other.args);
+        }
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object notDefault(Method method, ProxyHandler handler, Object proxy, Object[] args) {
+        if (ProxyTracing.TRACER != null)
+            ProxyTracing.TRACER.notDefaultMethod(method);
+        throw new NotDefaultMethodException(method);
+    }
+    
+}
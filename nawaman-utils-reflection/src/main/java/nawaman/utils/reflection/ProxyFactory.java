@@ -0,0 +1,219 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+import lombok.val;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Factory of default proxies for a validated and linked interface set.
+ * 
+ * The interface set is validated, the proxy class is generated and its dispatch table is linked
+ *   once when the factory is created so {@link #create()} is just a constructor call.
+ * If the interface is annotated with {@link DefaultProxy} and its implementation was generated at compile time,
+ *   the factory creates instances of the generated class instead -- unless the interface is also {@link Structural}.
+ * The factory is immutable and thread-safe.
+ * 
+ * @param <OBJECT>  the main interface type.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class ProxyFactory<OBJECT> {
+    
+    /** The suffix of the name of the class generated for an interface annotated with {@link DefaultProxy}. */
+    static final String GENERATED_SUFFIX = "_DefaultProxy";
+    
+    private static final MethodHandle newProxyInstance;
+    static {
+        try {
+            val type = methodType(Object.class, ClassLoader.class, Class[].class, InvocationHandler.class);
+            newProxyInstance = MethodHandles.lookup().findStatic(ProxyFactory.class, "newProxyInstance", type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    private final Class<OBJECT> theInterface;
+    
+    private final Class<?>[] interfaces;
+    
+    private final ProxyDispatch dispatch;
+    
+    private final MethodHandle constructor;
+    
+    private final MethodHandle generatedConstructor;
+    
+    ProxyFactory(Class<OBJECT> theInterface, Class<?>[] interfaces) {
+        this(theInterface, interfaces, null);
+    }
+    
+    private ProxyFactory(Class<OBJECT> theInterface, MethodHandle generatedConstructor) {
+        this.theInterface         = theInterface;
+        this.interfaces           = new Class<?>[] { theInterface };
+        this.dispatch             = null;
+        this.constructor          = null;
+        this.generatedConstructor = generatedConstructor;
+    }
+    
+    @SuppressWarnings("deprecation")
+    ProxyFactory(Class<OBJECT> theInterface, Class<?>[] interfaces, Function<ProxyDispatch, ProxyDispatch> customizer) {
+        val tracer      = ProxyTracing.TRACER;
+        val trace       = (tracer != null) ? tracer.beginProxyClassCreation(interfaces) : null;
+        val classLoader = theInterface.getClassLoader();
+        val proxyClass  = Proxy.getProxyClass(classLoader, interfaces);
+        val dispatch    = ProxyDispatch.of(proxyClass);
+        if (tracer != null)
+            tracer.endProxyClassCreation(trace, proxyClass);
+        
+        this.theInterface         = theInterface;
+        this.interfaces           = interfaces;
+        this.dispatch             = (customizer != null) ? customizer.apply(dispatch) : dispatch;
+        this.constructor          = constructorOf(proxyClass, classLoader, interfaces);
+        this.generatedConstructor = null;
+    }
+    
+    /**
+     * Returns a factory for the given interface alone -- the class generated at compile time is used if there is one.
+     * 
+     * @param <OBJECT>      the interface type.
+     * @param theInterface  the interface.
+     * @return  the factory.
+     */
+    static <OBJECT> ProxyFactory<OBJECT> forInterface(Class<OBJECT> theInterface) {
+        val generatedConstructor = generatedConstructorOf(theInterface);
+        if (generatedConstructor != null)
+            return new ProxyFactory<OBJECT>(theInterface, generatedConstructor);
+        
+        return new ProxyFactory<OBJECT>(theInterface, UProxy.prepareInterfaces(theInterface));
+    }
+    
+    private static MethodHandle generatedConstructorOf(Class<?> theInterface) {
+        if (!theInterface.isAnnotationPresent(DefaultProxy.class))
+            return null;
+        
+        // The generated class does not have the structural methods (the processor rejects it but it may be an old one).
+        if (theInterface.isAnnotationPresent(Structural.class))
+            return null;
+        
+        try {
+            val generatedName  = theInterface.getName() + GENERATED_SUFFIX;
+            val generatedClass = Class.forName(generatedName, true, theInterface.getClassLoader());
+            if (!theInterface.isAssignableFrom(generatedClass))
+                return null;
+            
+            val lookup = DefaultMethodInvoker.lookupFor(generatedClass);
+            return lookup
+                    .findConstructor(generatedClass, methodType(void.class))
+                    .asType(methodType(Object.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            // Not generated (for example, the processor was not used) -- fall back to the dynamic proxy.
+            return null;
+        }
+    }
+    
+    private static MethodHandle constructorOf(Class<?> proxyClass, ClassLoader classLoader, Class<?>[] interfaces) {
+        val type = methodType(Object.class, InvocationHandler.class);
+        try {
+            val constructor = proxyClass.getConstructor(InvocationHandler.class);
+            try {
+                return MethodHandles.publicLookup().unreflectConstructor(constructor).asType(type);
+            } catch (IllegalAccessException e) {
+                // The proxy class of a non-public interface is not public.
+                constructor.setAccessible(true);
+                return MethodHandles.publicLookup().unreflectConstructor(constructor).asType(type);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            // Let Proxy create it.
+            return MethodHandles.insertArguments(newProxyInstance, 0, classLoader, interfaces).asType(type);
+        }
+    }
+    
+    /** @return  the main interface. */
+    public Class<OBJECT> getInterface() {
+        return theInterface;
+    }
+    
+    /** @return  the interfaces the proxies implement -- the main interface comes first. */
+    public Class<?>[] getInterfaces() {
+        return interfaces.clone();
+    }
+    
+    /**
+     * Create a new default proxy.
+     * 
+     * @return  the newly created dynamic proxy.
+     */
+    @SuppressWarnings("unchecked")
+    public OBJECT create() {
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.proxyCreated(theInterface);
+        
+        if (generatedConstructor != null)
+            return createGenerated();
+        
+        return createProxy(null);
+    }
+    
+    /**
+     * Create a new proxy that delegates to the given target -- the factory must be created with 
+     *   a {@link ProxyDispatch#delegate(Class) delegating} dispatch for the class of the target.
+     * 
+     * @param target  the target.
+     * @return  the newly created dynamic proxy.
+     */
+    OBJECT createDelegating(Object target) {
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.proxyCreated(theInterface);
+        
+        return createProxy(target);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private OBJECT createProxy(Object target) {
+        val handler = new ProxyHandler(dispatch, HashSequence.next(), target);
+        try {
+            return (OBJECT)(Object)constructor.invokeExact((InvocationHandler)handler);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private OBJECT createGenerated() {
+        try {
+            return (OBJECT)(Object)generatedConstructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    // Proxy.newProxyInstance is caller sensitive so it cannot be used as a method handle directly.
+    private static Object newProxyInstance(ClassLoader classLoader, Class<?>[] interfaces, InvocationHandler handler) {
+        return Proxy.newProxyInstance(classLoader, interfaces, handler);
+    }
+    
+}
@@ -0,0 +1,101 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Invocation handler of a default proxy -- one per proxy instance.
+ * 
+ * All the per-method work is done by the shared {@link ProxyDispatch};
+ *   this handler only holds the per-instance state.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class ProxyHandler implements InvocationHandler {
+    
+    private final ProxyDispatch dispatch;
+    
+    private final int hash;
+    
+    private final AtomicReferenceArray<Object> memoSlots;
+    
+    private final Object target;
+    
+    private String toString;
+    
+    private int structuralHash;
+    
+    ProxyHandler(ProxyDispatch dispatch, int hash) {
+        this(dispatch, hash, null);
+    }
+    
+    ProxyHandler(ProxyDispatch dispatch, int hash, Object target) {
+        this.dispatch  = dispatch;
+        this.hash      = hash;
+        this.memoSlots = (dispatch.memoSlotCount() != 0) ? new AtomicReferenceArray<>(dispatch.memoSlotCount()) : null;
+        this.target    = target;
+    }
+    
+    /**
+     * @return  the target the abstract methods are delegated to -- see {@link ProxyDispatch#delegate(Class)} -- 
+     *            or the slots of a struct proxy (see {@link StructLayout}).
+     */
+    Object target() {
+        return target;
+    }
+    
+    /** @return  the memoization slots of this proxy -- see {@link ProxyDispatch#memoize()}. */
+    AtomicReferenceArray<Object> memoSlots() {
+        return memoSlots;
+    }
+    
+    /** @return  the cached structural hash of this proxy or zero if not yet computed -- see {@link StructuralLayout}. */
+    int structuralHash() {
+        return structuralHash;
+    }
+    
+    /** @param structuralHash  the structural hash of this proxy to cache. */
+    void structuralHash(int structuralHash) {
+        this.structuralHash = structuralHash;
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (ProxyMetrics.ENABLED)
+            ProxyMetrics.invoked(method);
+        
+        return (Object)dispatch.actionFor(method).invokeExact(this, proxy, args);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        // Racy but benign -- the same way String caches its hash.
+        String toString = this.toString;
+        if (toString == null) {
+            toString = dispatch.simpleName() + "@" + hash;
+            this.toString = toString;
+        }
+        return toString;
+    }
+    
+}
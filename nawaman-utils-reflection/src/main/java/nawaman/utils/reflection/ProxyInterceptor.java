@@ -0,0 +1,80 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.reflect.Method;
+
+/**
+ * Interceptors of the proxy method calls -- see {@link ProxyBuilder#before(java.util.function.Predicate, Before)},
+ *   {@link ProxyBuilder#after(java.util.function.Predicate, After)} and
+ *   {@link ProxyBuilder#around(java.util.function.Predicate, Around)}.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class ProxyInterceptor {
+    
+    private ProxyInterceptor() {
+    }
+    
+    /** Interceptor that is called before the method. */
+    @FunctionalInterface
+    public static interface Before {
+        
+        /**
+         * Called before the method is called.
+         * 
+         * @param proxy      the proxy.
+         * @param method     the method.
+         * @param arguments  the arguments -- null if the method has no parameter.
+         * @throws Throwable  any exception to be thrown instead of calling the method.
+         */
+        public void before(Object proxy, Method method, Object[] arguments) throws Throwable;
+        
+    }
+    
+    /** Interceptor that is called after the method returns. */
+    @FunctionalInterface
+    public static interface After {
+        
+        /**
+         * Called after the method returns.
+         * 
+         * @param proxy      the proxy.
+         * @param method     the method.
+         * @param arguments  the arguments -- null if the method has no parameter.
+         * @param result     the result of the method.
+         * @return  the result to be returned -- normally the given result.
+         * @throws Throwable  any exception to be thrown instead of returning.
+         */
+        public Object after(Object proxy, Method method, Object[] arguments, Object result) throws Throwable;
+        
+    }
+    
+    /** Interceptor that is called instead of the method and decides when (and how many times) to proceed. */
+    @FunctionalInterface
+    public static interface Around {
+        
+        /**
+         * Called instead of the method.
+         * 
+         * @param invocation  the invocation -- call {@link Invocation#proceed()} to call the method.
+         * @return  the result to be returned.
+         * @throws Throwable  any exception to be thrown.
+         */
+        public Object around(Invocation invocation) throws Throwable;
+        
+    }
+    
+}
@@ -0,0 +1,262 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.NonNull;
+import lombok.val;
+
+/**
+ * Opt-in metrics of the proxies -- creations, invocations, default method latencies and cache hits.
+ * 
+ * The metrics are enabled by the system property {@value #ENABLED_PROPERTY} ({@code -D}{@value #ENABLED_PROPERTY}{@code =true}).
+ * The property is read once when this class is loaded and every recording site is guarded by 
+ *   the static final {@link #ENABLED} so the JIT removes the recording altogether when it is disabled.
+ * The counters are {@link LongAdder}s so recording from many threads does not contend.
+ * 
+ * When enabled, the measured interfaces and methods are held by the metrics until {@link #reset()}.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class ProxyMetrics {
+    
+    /** The system property to enable the metrics. */
+    public static final String ENABLED_PROPERTY = "nawaman.utils.reflection.metrics";
+    
+    /** Whether the metrics are enabled -- all recording sites check this first. */
+    static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    
+    /** The caches used in the method resolution. */
+    public static enum Cache {
+        /** The cache of the linked default method invokers. */
+        DEFAULT_METHOD_INVOKER,
+        /** The cache of the dispatch actions of the proxy methods. */
+        DISPATCH;
+    }
+    
+    // Registries (not caches) -- they are iterated for the snapshots and cleared by reset() so they are plain maps.
+    private static final ConcurrentHashMap<Class<?>, LongAdder> proxiesCreated = new ConcurrentHashMap<>();
+    
+    private static final ConcurrentHashMap<Method, LongAdder> invocations = new ConcurrentHashMap<>();
+    
+    private static final ConcurrentHashMap<Method, Histogram> defaultMethodLatencies = new ConcurrentHashMap<>();
+    
+    private static final LongAdder[] cacheHits   = adders(Cache.values().length);
+    private static final LongAdder[] cacheMisses = adders(Cache.values().length);
+    
+    private ProxyMetrics() {
+    }
+    
+    private static LongAdder[] adders(int count) {
+        val adders = new LongAdder[count];
+        for (int i = 0; i < count; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+    
+    /** @return  {@code true} if the metrics are enabled. */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    
+    //== Recording ==
+    
+    static void proxyCreated(Class<?> theInterface) {
+        counterOf(proxiesCreated, theInterface).increment();
+    }
+    
+    static void invoked(Method method) {
+        counterOf(invocations, method).increment();
+    }
+    
+    static void defaultMethodInvoked(Method method, long nanos) {
+        Histogram histogram = defaultMethodLatencies.get(method);
+        if (histogram == null)
+            histogram = defaultMethodLatencies.computeIfAbsent(method, __ -> new Histogram());
+        histogram.record(nanos);
+    }
+    
+    static void cacheHit(Cache cache) {
+        cacheHits[cache.ordinal()].increment();
+    }
+    
+    static void cacheMiss(Cache cache) {
+        cacheMisses[cache.ordinal()].increment();
+    }
+    
+    private static <K> LongAdder counterOf(ConcurrentHashMap<K, LongAdder> counters, K key) {
+        val counter = counters.get(key);
+        if (counter != null)
+            return counter;
+        
+        return counters.computeIfAbsent(key, __ -> new LongAdder());
+    }
+    
+    //== Reading ==
+    
+    /** @return  the snapshot of the number of proxies created per main interface. */
+    public static Map<Class<?>, Long> getProxiesCreated() {
+        return snapshot(proxiesCreated);
+    }
+    
+    /** @return  the snapshot of the number of proxy invocations per method. */
+    public static Map<Method, Long> getInvocations() {
+        return snapshot(invocations);
+    }
+    
+    /** @return  the latency histograms of {@link UProxy#invokeDefaultMethod(Object, Method, Object[])} per method. */
+    public static Map<Method, Histogram> getDefaultMethodLatencies() {
+        return unmodifiableMap(new HashMap<>(defaultMethodLatencies));
+    }
+    
+    /**
+     * Returns the number of hits of the given cache.
+     * 
+     * @param cache  the cache.
+     * @return  the number of hits.
+     */
+    public static long getHits(@NonNull Cache cache) {
+        return cacheHits[cache.ordinal()].sum();
+    }
+    
+    /**
+     * Returns the number of misses of the given cache.
+     * 
+     * @param cache  the cache.
+     * @return  the number of misses.
+     */
+    public static long getMisses(@NonNull Cache cache) {
+        return cacheMisses[cache.ordinal()].sum();
+    }
+    
+    /**
+     * Returns the hit rate of the given cache.
+     * 
+     * @param cache  the cache.
+     * @return  the hit rate between 0.0 and 1.0 -- or 0.0 if the cache was never used.
+     */
+    public static double getHitRate(@NonNull Cache cache) {
+        val hits  = getHits(cache);
+        val total = hits + getMisses(cache);
+        return (total == 0) ? 0.0 : ((double)hits / total);
+    }
+    
+    /** Clear all the metrics. */
+    public static void reset() {
+        proxiesCreated.clear();
+        invocations.clear();
+        defaultMethodLatencies.clear();
+        for (LongAdder adder : cacheHits)
+            adder.reset();
+        for (LongAdder adder : cacheMisses)
+            adder.reset();
+    }
+    
+    private static <K> Map<K, Long> snapshot(ConcurrentHashMap<K, LongAdder> counters) {
+        val snapshot = new HashMap<K, Long>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return unmodifiableMap(snapshot);
+    }
+    
+    /**
+     * Latency histogram with power-of-two buckets.
+     * 
+     * The bucket {@code i} counts the latencies in nanoseconds in the range of {@code [2^(i-1), 2^i)};
+     *   the bucket 0 counts the zero latencies.
+     */
+    public static final class Histogram {
+        
+        /** The number of buckets. */
+        public static final int BUCKET_COUNT = 65;
+        
+        private final LongAdder[] buckets = adders(BUCKET_COUNT);
+        
+        private final LongAdder totalNanos = new LongAdder();
+        
+        Histogram() {
+        }
+        
+        void record(long nanos) {
+            val value = Math.max(0, nanos);
+            buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+            totalNanos.add(value);
+        }
+        
+        /** @return  the number of recorded latencies. */
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets)
+                count += bucket.sum();
+            return count;
+        }
+        
+        /** @return  the sum of all the recorded latencies in nanoseconds. */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+        
+        /** @return  the mean latency in nanoseconds -- or 0.0 if nothing was recorded. */
+        public double getMeanNanos() {
+            val count = getCount();
+            return (count == 0) ? 0.0 : ((double)getTotalNanos() / count);
+        }
+        
+        /** @return  the counts of each of the buckets. */
+        public long[] getBucketCounts() {
+            val counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++)
+                counts[i] = buckets[i].sum();
+            return counts;
+        }
+        
+        /**
+         * Returns the upper bound (exclusive) of the bucket that contains the given percentile.
+         * 
+         * @param percentile  the percentile -- between 0.0 and 100.0.
+         * @return  the upper bound in nanoseconds -- or 0 if nothing was recorded.
+         */
+        public long getPercentileNanos(double percentile) {
+            val counts = getBucketCounts();
+            long total = 0;
+            for (long count : counts)
+                total += count;
+            if (total == 0)
+                return 0;
+            
+            val target = (long)Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if ((seen >= target) && (seen > 0))
+                    return (i == 0) ? 1 : ((i >= 63) ? Long.MAX_VALUE : (1L << i));
+            }
+            return Long.MAX_VALUE;
+        }
+        
+        @Override
+        public String toString() {
+            return "Histogram[count=" + getCount() + ", mean=" + getMeanNanos() + "ns]";
+        }
+        
+    }
+    
+}
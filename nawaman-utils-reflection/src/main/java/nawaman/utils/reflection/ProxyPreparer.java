@@ -0,0 +1,194 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import lombok.val;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Warm-up of the proxies -- does all the one-time work of a set of interfaces ahead of the first calls.
+ * 
+ * For each interface, the hierarchy is scanned, the default methods are resolved and linked and 
+ *   (for a default interface) the proxy class and its dispatch table are created -- in parallel on a fork-join pool.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class ProxyPreparer {
+    
+    private ProxyPreparer() {
+    }
+    
+    /**
+     * Prepare the given interfaces on the pool.
+     * 
+     * @param pool        the pool.
+     * @param interfaces  the interfaces.
+     * @return  the report.
+     */
+    static PrepareReport prepare(ForkJoinPool pool, Iterable<Class<?>> interfaces) {
+        return prepare(pool, interfaces, new LinkedHashMap<>());
+    }
+    
+    private static PrepareReport prepare(ForkJoinPool pool, Iterable<Class<?>> interfaces, Map<String, Throwable> scanFailures) {
+        val startTime   = System.nanoTime();
+        val timings     = new ConcurrentHashMap<Class<?>, Long>();
+        val nonDefaults = new ConcurrentHashMap<Class<?>, Map<String, String>>();
+        val failures    = new ConcurrentHashMap<String, Throwable>(scanFailures);
+        
+        val tasks = new ArrayList<Callable<Void>>();
+        for (Class<?> theInterface : new LinkedHashSet<>(asList(interfaces))) {
+            tasks.add(() -> {
+                val interfaceStart = System.nanoTime();
+                try {
+                    val nonDefaultMethods = prepareInterface(theInterface);
+                    if (!nonDefaultMethods.isEmpty())
+                        nonDefaults.put(theInterface, nonDefaultMethods);
+                    timings.put(theInterface, System.nanoTime() - interfaceStart);
+                } catch (RuntimeException | LinkageError e) {
+                    failures.put(theInterface.getName(), e);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UReflectionException(e);
+            } catch (ExecutionException e) {
+                throw new UReflectionException(e.getCause());
+            }
+        }
+        return new PrepareReport(System.nanoTime() - startTime, timings, nonDefaults, failures);
+    }
+    
+    private static List<Class<?>> asList(Iterable<Class<?>> interfaces) {
+        val list = new ArrayList<Class<?>>();
+        interfaces.forEach(list::add);
+        return list;
+    }
+    
+    private static Map<String, String> prepareInterface(Class<?> theInterface) {
+        if (!theInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theInterface);
+        
+        // Scan the hierarchy and build the resolution table.
+        val nonDefaultMethods = UProxy.getNonDefaultMethods(theInterface);
+        
+        // Create the lookups and link the default methods.
+        for (Method method : theInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()))
+                DefaultMethodInvoker.ofOrNull(method);
+        }
+        
+        // Create the proxy class and its dispatch table.
+        if (nonDefaultMethods.isEmpty())
+            UProxy.factoryFor(theInterface);
+        
+        return nonDefaultMethods;
+    }
+    
+    /**
+     * Prepare the interfaces in the given package (and its sub packages) on the pool.
+     * 
+     * @param pool         the pool.
+     * @param classLoader  the class loader to find the classes of the package with.
+     * @param packageName  the package name.
+     * @return  the report -- the classes that can not be loaded are reported as failures.
+     */
+    static PrepareReport preparePackage(ForkJoinPool pool, ClassLoader classLoader, String packageName) {
+        val failures   = new LinkedHashMap<String, Throwable>();
+        val interfaces = new ArrayList<Class<?>>();
+        for (String className : classNamesIn(classLoader, packageName)) {
+            try {
+                val type = Class.forName(className, false, classLoader);
+                if (type.isInterface() && !type.isAnnotation())
+                    interfaces.add(type);
+            } catch (ClassNotFoundException | LinkageError e) {
+                failures.put(className, e);
+            }
+        }
+        return prepare(pool, interfaces, failures);
+    }
+    
+    private static Set<String> classNamesIn(ClassLoader classLoader, String packageName) {
+        val path       = packageName.replace('.', '/');
+        val classNames = new LinkedHashSet<String>();
+        try {
+            for (URL url : Collections.list(classLoader.getResources(path))) {
+                if ("file".equals(url.getProtocol()))
+                    collectFromDirectory(Paths.get(url.toURI()), packageName, classNames);
+                else if ("jar".equals(url.getProtocol()))
+                    collectFromJar((JarURLConnection)url.openConnection(), path, classNames);
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new UReflectionException("Unable to scan the package: " + packageName, e);
+        }
+        return classNames;
+    }
+    
+    private static void collectFromDirectory(Path directory, String packageName, Set<String> classNames) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.forEach(file -> {
+                val relative = directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), ".");
+                addClassName(packageName + "." + relative, classNames);
+            });
+        }
+    }
+    
+    private static void collectFromJar(JarURLConnection connection, String path, Set<String> classNames) throws IOException {
+        connection.setUseCaches(false);
+        try (val jarFile = connection.getJarFile()) {
+            val entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                val name = entries.nextElement().getName();
+                if (name.startsWith(path + "/"))
+                    addClassName(name.replace('/', '.'), classNames);
+            }
+        }
+    }
+    
+    private static void addClassName(String fileName, Set<String> classNames) {
+        if (!fileName.endsWith(".class") || fileName.endsWith("package-info.class") || fileName.endsWith("module-info.class"))
+            return;
+        
+        classNames.add(fileName.substring(0, fileName.length() - ".class".length()));
+    }
+    
+}
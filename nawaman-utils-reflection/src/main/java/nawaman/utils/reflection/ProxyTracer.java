@@ -0,0 +1,98 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.reflect.Method;
+
+/**
+ * Service provider interface to trace the proxy operations -- for example, as JFR events.
+ * 
+ * The tracer is loaded once with {@link java.util.ServiceLoader} (the first one found is used) when the first 
+ *   proxy operation is traced. If there is no tracer, the tracing sites are skipped at no cost.
+ * Each timed operation is traced with a begin and an end call; the object returned by the begin method 
+ *   is given back to the matching end method so a tracer can time the operation and decide whether to record it 
+ *   -- a tracer returns null if it is not interested.
+ * All methods must be thread-safe and must not throw.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public interface ProxyTracer {
+    
+    /**
+     * Called before a proxy class for the interfaces is created and linked.
+     * 
+     * @param interfaces  the interfaces -- the main interface first.
+     * @return  the trace object to be given to {@link #endProxyClassCreation(Object, Class)} or null.
+     */
+    public default Object beginProxyClassCreation(Class<?>[] interfaces) {
+        return null;
+    }
+    
+    /**
+     * Called after a proxy class is created and linked.
+     * 
+     * @param trace       the object returned by {@link #beginProxyClassCreation(Class[])}.
+     * @param proxyClass  the proxy class.
+     */
+    public default void endProxyClassCreation(Object trace, Class<?> proxyClass) {
+    }
+    
+    /**
+     * Called before the default method of the method is resolved and linked.
+     * 
+     * @param method  the method.
+     * @return  the trace object to be given to {@link #endDefaultMethodResolution(Object, Method)} or null.
+     */
+    public default Object beginDefaultMethodResolution(Method method) {
+        return null;
+    }
+    
+    /**
+     * Called after the default method of the method is resolved and linked.
+     * 
+     * @param trace          the object returned by {@link #beginDefaultMethodResolution(Method)}.
+     * @param defaultMethod  the resolved default method or null if there is none.
+     */
+    public default void endDefaultMethodResolution(Object trace, Method defaultMethod) {
+    }
+    
+    /**
+     * Called before the interface is scanned for its non-default methods.
+     * 
+     * @param theInterface  the interface.
+     * @return  the trace object to be given to {@link #endInterfaceScan(Object, int)} or null.
+     */
+    public default Object beginInterfaceScan(Class<?> theInterface) {
+        return null;
+    }
+    
+    /**
+     * Called after the interface is scanned.
+     * 
+     * @param trace                  the object returned by {@link #beginInterfaceScan(Class)}.
+     * @param nonDefaultMethodCount  the number of the non-default methods found.
+     */
+    public default void endInterfaceScan(Object trace, int nonDefaultMethodCount) {
+    }
+    
+    /**
+     * Called when a {@link nawaman.utils.reflection.exception.NotDefaultMethodException} is about to be thrown.
+     * 
+     * @param method  the method that is not a default method.
+     */
+    public default void notDefaultMethod(Method method) {
+    }
+    
+}
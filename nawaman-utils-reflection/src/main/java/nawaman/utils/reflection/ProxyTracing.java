@@ -0,0 +1,45 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Holder of the {@link ProxyTracer} loaded from the service loader.
+ * 
+ * The tracer is a static final so the JIT removes the tracing sites when there is none.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class ProxyTracing {
+    
+    /** The tracer or null if there is none. */
+    static final ProxyTracer TRACER = loadTracer();
+    
+    private ProxyTracing() {
+    }
+    
+    private static ProxyTracer loadTracer() {
+        try {
+            for (ProxyTracer tracer : ServiceLoader.load(ProxyTracer.class, ProxyTracer.class.getClassLoader()))
+                return tracer;
+        } catch (ServiceConfigurationError | LinkageError e) {
+            // The tracer cannot be loaded -- for example, JFR is not available in this JVM.
+        }
+        return null;
+    }
+    
+}
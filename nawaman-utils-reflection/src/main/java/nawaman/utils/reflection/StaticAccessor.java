@@ -0,0 +1,230 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodType.genericMethodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.val;
+import nawaman.utils.common.KeyedClassMetadata;
+
+/**
+ * Compiled accessor of a static field or a static method.
+ * 
+ * The accessor is backed by a method handle that is adapted once so there is no reflective call and,
+ *   for up to three parameters, no argument array.
+ * Just like {@link UReflection#getValueFromStaticFieldOrNull(Class, Field)} and 
+ *   {@link UReflection#invokeStaticMethodOrNull(Class, Method)}, the accessor returns {@code null} 
+ *   if it fails for any reason -- such as the member is not static or not accessible, 
+ *   the arguments do not match or the method throws an exception.
+ * 
+ * @param <R>  the type of the value.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+public final class StaticAccessor<R> implements Supplier<R> {
+    
+    // The accessible copies of a member (see setAccessible(...)) are kept apart so they do not lend their access to others.
+    private static final KeyedClassMetadata<Member, StaticAccessor<?>> accessors
+            = new KeyedClassMetadata<>((type, member) -> link(member));
+    private static final KeyedClassMetadata<Member, StaticAccessor<?>> accessibleAccessors
+            = new KeyedClassMetadata<>((type, member) -> link(member));
+    
+    private final Member       member;
+    private final int          arity;
+    private final MethodHandle handle;
+    private final MethodHandle spreader;
+    
+    private StaticAccessor(Member member, int arity, MethodHandle handle) {
+        this.member   = member;
+        this.arity    = arity;
+        this.handle   = (handle != null) ? handle.asType(genericMethodType(arity)) : null;
+        this.spreader = (handle != null) ? this.handle.asSpreader(Object[].class, arity) : null;
+    }
+    
+    /**
+     * Returns the (cached) accessor of the given static field.
+     * 
+     * @param <R>    the type of the value.
+     * @param field  the field.
+     * @return  the accessor.
+     */
+    public static <R> StaticAccessor<R> of(@NonNull Field field) {
+        return cached(field);
+    }
+    
+    /**
+     * Returns the (cached) accessor of the given static method.
+     * 
+     * @param <R>     the return type of the method.
+     * @param method  the method.
+     * @return  the accessor.
+     */
+    public static <R> StaticAccessor<R> of(@NonNull Method method) {
+        return cached(method);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <R> StaticAccessor<R> cached(Member member) {
+        // Keyed by the member (equality) and whether it is accessible -- the failed ones are cached too.
+        val cache = isAccessible(member) ? accessibleAccessors : accessors;
+        return (StaticAccessor<R>)cache.get(member.getDeclaringClass(), member);
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static boolean isAccessible(Member member) {
+        return (member instanceof Field)
+             ? ((Field)member).isAccessible()
+             : ((Method)member).isAccessible();
+    }
+    
+    private static StaticAccessor<?> link(Member member) {
+        val lookup = MethodHandles.lookup();
+        if (!Modifier.isStatic(member.getModifiers()))
+            return new StaticAccessor<Object>(member, 0, null);
+        
+        try {
+            if (member instanceof Field) {
+                val handle = lookup.unreflectGetter((Field)member);
+                return new StaticAccessor<Object>(member, 0, handle);
+            } else {
+                val method = (Method)member;
+                val handle = lookup.unreflect(method);
+                if (method.isVarArgs())
+                    return new StaticAccessor<Object>(member, method.getParameterCount(), handle.asFixedArity());
+                return new StaticAccessor<Object>(member, method.getParameterCount(), handle);
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            return new StaticAccessor<Object>(member, 0, null);
+        }
+    }
+    
+    /** @return  the field or the method this accessor accesses. */
+    public Member getMember() {
+        return member;
+    }
+    
+    /** @return  the number of the parameters -- 0 for a field. */
+    public int getArity() {
+        return arity;
+    }
+    
+    /**
+     * Returns the value of the field or the result of the method with no parameter -- null if fail.
+     * 
+     * @return  the value or null if fail.
+     */
+    @Override
+    public R get() {
+        return invoke();
+    }
+    
+    /**
+     * Invoke with no argument -- return null if fail for any reason.
+     * 
+     * @return  the value or null if fail.
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke() {
+        if ((arity != 0) || (handle == null))
+            return null;
+        try {
+            return (R)(Object)handle.invokeExact();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Invoke with one argument -- return null if fail for any reason.
+     * 
+     * @param arg1  the first argument.
+     * @return  the result or null if fail.
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(Object arg1) {
+        if ((arity != 1) || (handle == null))
+            return null;
+        try {
+            return (R)(Object)handle.invokeExact(arg1);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Invoke with two arguments -- return null if fail for any reason.
+     * 
+     * @param arg1  the first argument.
+     * @param arg2  the second argument.
+     * @return  the result or null if fail.
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(Object arg1, Object arg2) {
+        if ((arity != 2) || (handle == null))
+            return null;
+        try {
+            return (R)(Object)handle.invokeExact(arg1, arg2);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Invoke with three arguments -- return null if fail for any reason.
+     * 
+     * @param arg1  the first argument.
+     * @param arg2  the second argument.
+     * @param arg3  the third argument.
+     * @return  the result or null if fail.
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(Object arg1, Object arg2, Object arg3) {
+        if ((arity != 3) || (handle == null))
+            return null;
+        try {
+            return (R)(Object)handle.invokeExact(arg1, arg2, arg3);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Invoke with the arguments in the array -- return null if fail for any reason.
+     * 
+     * @param args  the arguments.
+     * @return  the result or null if fail.
+     */
+    @SuppressWarnings("unchecked")
+    public R invokeWithArguments(Object ... args) {
+        val argCount = (args == null) ? 0 : args.length;
+        if ((arity != argCount) || (spreader == null))
+            return null;
+        try {
+            return (R)(Object)spreader.invokeExact(args);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+}
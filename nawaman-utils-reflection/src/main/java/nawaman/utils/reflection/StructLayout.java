@@ -0,0 +1,279 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.explicitCastArguments;
+import static java.lang.invoke.MethodHandles.filterReturnValue;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Slot layout of a struct interface -- an interface whose abstract methods are getters and with-ers.
+ * 
+ * A getter is an abstract method without parameter that returns a value; its name is the property name.
+ * A with-er is an abstract method named {@code with} followed by the capitalized property name that takes
+ *   the new value and returns the interface -- it returns a copy of the struct with the property changed.
+ * Each property gets a fixed slot once per interface: the primitive values are stored (as their bits) in 
+ *   a {@code long[]} and the references in an {@code Object[]} so a struct costs two arrays per instance and 
+ *   a getter is an array read with no hashing.
+ * The layout is immutable and thread-safe.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class StructLayout {
+    
+    private static final ClassMetadata<StructLayout> layouts = new ClassMetadata<>(StructLayout::new);
+    
+    private static final MethodHandle primitive;
+    private static final MethodHandle reference;
+    private static final MethodHandle with;
+    private static final MethodHandle longBitsToDouble;
+    private static final MethodHandle intBitsToFloat;
+    static {
+        try {
+            val lookup = MethodHandles.lookup();
+            primitive        = lookup.findStatic(StructLayout.class, "primitive", methodType(long.class,   int.class, ProxyHandler.class));
+            reference        = lookup.findStatic(StructLayout.class, "reference", ProxyDispatch.ACTION_TYPE.insertParameterTypes(0, int.class));
+            with             = lookup.findStatic(StructLayout.class, "with",      ProxyDispatch.ACTION_TYPE.insertParameterTypes(0, StructLayout.class, Property.class));
+            longBitsToDouble = lookup.findStatic(Double.class, "longBitsToDouble", methodType(double.class, long.class));
+            intBitsToFloat   = lookup.findStatic(Float.class,  "intBitsToFloat",   methodType(float.class,  int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    /** A property of a struct and its slot. */
+    static final class Property {
+        
+        final String   name;
+        final Class<?> type;
+        final int      slot;
+        
+        Property(String name, Class<?> type, int slot) {
+            this.name = name;
+            this.type = type;
+            this.slot = slot;
+        }
+        
+        boolean isPrimitive() {
+            return type.isPrimitive();
+        }
+        
+    }
+    
+    /** The per-instance slots of a struct -- held as the target of the proxy handler. */
+    static final class Slots {
+        
+        final long[]   primitives;
+        final Object[] references;
+        
+        Slots(long[] primitives, Object[] references) {
+            this.primitives = primitives;
+            this.references = references;
+        }
+        
+    }
+    
+    private final Class<?> theInterface;
+    
+    private final Map<String, Property> properties;
+    
+    private final int primitiveCount;
+    
+    private final int referenceCount;
+    
+    private final ProxyFactory<?> factory;
+    
+    private StructLayout(Class<?> theInterface) {
+        if (!theInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theInterface);
+        
+        val getters = new LinkedHashMap<Method, Property>();
+        val withers = new LinkedHashMap<Method, String>();
+        val properties = new LinkedHashMap<String, Property>();
+        int primitiveCount = 0;
+        int referenceCount = 0;
+        for (Method method : theInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+             || ProxyDispatch.isObjectMethod(method)
+             || (DefaultMethodInvoker.ofOrNull(method) != null))
+                continue;
+            
+            if ((method.getParameterCount() == 0) && (method.getReturnType() != void.class)) {
+                val name     = method.getName();
+                val type     = method.getReturnType();
+                val existing = properties.get(name);
+                if (existing == null) {
+                    val slot     = type.isPrimitive() ? primitiveCount++ : referenceCount++;
+                    val property = new Property(name, type, slot);
+                    properties.put(name, property);
+                    getters.put(method, property);
+                } else {
+                    // The same getter re-declared by another super interface.
+                    getters.put(method, existing);
+                }
+            } else if (isWither(method, theInterface)) {
+                withers.put(method, method.getName());
+            } else {
+                throw new IllegalArgumentException("Getter or with-er is required: " + method);
+            }
+        }
+        
+        val overrides = new HashMap<Method, MethodHandle>();
+        getters.forEach((method, property) -> overrides.put(method, getterOf(property)));
+        withers.forEach((method, witherName) -> {
+            val property = propertyOfWither(properties, witherName);
+            if ((property == null) || (property.type != method.getParameterTypes()[0]))
+                throw new IllegalArgumentException("Getter of the with-er is required: " + method);
+            overrides.put(method, insertArguments(with, 0, this, property));
+        });
+        
+        this.theInterface   = theInterface;
+        this.properties     = properties;
+        this.primitiveCount = primitiveCount;
+        this.referenceCount = referenceCount;
+        this.factory        = new ProxyFactory<>(theInterface, UProxy.prepareInterfaces(theInterface), 
+                                                 dispatch -> dispatch.override(overrides));
+    }
+    
+    /**
+     * Returns the layout of the given interface.
+     * 
+     * @param theInterface  the struct interface.
+     * @return  the layout.
+     * @throws IllegalArgumentException  if the interface has an abstract method that is neither a getter nor a with-er.
+     */
+    static StructLayout of(Class<?> theInterface) {
+        return layouts.get(theInterface);
+    }
+    
+    private static boolean isWither(Method method, Class<?> theInterface) {
+        val name = method.getName();
+        return (method.getParameterCount() == 1)
+            && (name.length() > 4)
+            && name.startsWith("with")
+            && Character.isUpperCase(name.charAt(4))
+            && method.getReturnType().isAssignableFrom(theInterface);
+    }
+    
+    private static Property propertyOfWither(Map<String, Property> properties, String witherName) {
+        val capitalized = witherName.substring(4);
+        val property    = properties.get(Character.toLowerCase(capitalized.charAt(0)) + capitalized.substring(1));
+        return (property != null) ? property : properties.get(capitalized);
+    }
+    
+    private static MethodHandle getterOf(Property property) {
+        if (!property.isPrimitive())
+            return insertArguments(reference, 0, property.slot);
+        
+        // (ProxyHandler)long -> (ProxyHandler)type -> (ProxyHandler, Object, Object[])Object
+        val bits    = insertArguments(primitive, 0, property.slot);
+        val decoded = (property.type == double.class) ? filterReturnValue(bits, longBitsToDouble)
+                    : (property.type == float.class)  ? filterReturnValue(explicitCastArguments(bits, methodType(int.class, ProxyHandler.class)), intBitsToFloat)
+                    : (property.type == boolean.class) ? explicitCastArguments(bits, methodType(boolean.class, ProxyHandler.class))
+                    : explicitCastArguments(bits, methodType(property.type, ProxyHandler.class));
+        return dropArguments(decoded.asType(methodType(Object.class, ProxyHandler.class)), 1, Object.class, Object[].class);
+    }
+    
+    /**
+     * Create a new struct with the given property values -- the properties not given are zero, false or null.
+     * 
+     * @param namesAndValues  the property names each followed by its value.
+     * @return  the newly created struct proxy.
+     * @throws IllegalArgumentException  if a name is unknown or a value is not of the property type.
+     */
+    Object create(Object[] namesAndValues) {
+        if ((namesAndValues != null) && ((namesAndValues.length % 2) != 0))
+            throw new IllegalArgumentException("Name-value pairs are required: " + namesAndValues.length + " elements");
+        
+        val primitives = new long[primitiveCount];
+        val references = new Object[referenceCount];
+        if (namesAndValues != null) {
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                val name     = namesAndValues[i];
+                val property = (name instanceof String) ? properties.get(name) : null;
+                if (property == null)
+                    throw new IllegalArgumentException("Property of the interface is required: " + name + " in " + theInterface);
+                
+                set(primitives, references, property, namesAndValues[i + 1]);
+            }
+        }
+        return factory.createDelegating(new Slots(primitives, references));
+    }
+    
+    private static void set(long[] primitives, Object[] references, Property property, Object value) {
+        if (!property.isPrimitive()) {
+            if ((value != null) && !property.type.isInstance(value))
+                throw new IllegalArgumentException("Value of the type " + property.type.getName() + " is required: " + property.name + "=" + value);
+            references[property.slot] = value;
+        } else {
+            primitives[property.slot] = bitsOf(property, value);
+        }
+    }
+    
+    private static long bitsOf(Property property, Object value) {
+        val type = property.type;
+        if ((type == boolean.class) && (value instanceof Boolean))
+            return ((Boolean)value) ? 1L : 0L;
+        if ((type == char.class) && (value instanceof Character))
+            return (Character)value;
+        if ((type == double.class) && (value instanceof Double))
+            return Double.doubleToRawLongBits((Double)value);
+        if ((type == float.class) && (value instanceof Float))
+            return Float.floatToRawIntBits((Float)value);
+        if (((type == long.class)  && (value instanceof Long))
+         || ((type == int.class)   && (value instanceof Integer))
+         || ((type == short.class) && (value instanceof Short))
+         || ((type == byte.class)  && (value instanceof Byte)))
+            return ((Number)value).longValue();
+        
+        throw new IllegalArgumentException("Value of the type " + type.getName() + " is required: " + property.name + "=" + value);
+    }
+    
+    //== Actions ==
+    
+    @SuppressWarnings("unused")
+    private static long primitive(int slot, ProxyHandler handler) {
+        return ((Slots)handler.target()).primitives[slot];
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object reference(int slot, ProxyHandler handler, Object proxy, Object[] args) {
+        return ((Slots)handler.target()).references[slot];
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object with(StructLayout layout, Property property, ProxyHandler handler, Object proxy, Object[] args) {
+        val slots      = (Slots)handler.target();
+        val primitives = property.isPrimitive() ? slots.primitives.clone() : slots.primitives;
+        val references = property.isPrimitive() ? slots.references         : slots.references.clone();
+        set(primitives, references, property, args[0]);
+        return layout.factory.createDelegating(new Slots(primitives, references));
+    }
+    
+}
@@ -0,0 +1,47 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a value-like interface to have structural {@code toString()}, {@code hashCode()} and {@code equals(Object)} 
+ *   in its dynamic proxies.
+ * 
+ * The values are those of the methods without parameter (the getters) ordered by name.
+ * Two proxies of the same proxy class are equal if all their values are equal (arrays by their content);
+ *   the string looks like {@code Point[x=1, y=2]}.
+ * The getters are resolved once per interface and the hash is computed once per proxy (unless {@link #cacheHash()}
+ *   is {@code false}) so the proxies make efficient cache keys -- the getters must not change their values then.
+ * This takes precedence over {@link WithToStringHashCodeEquals} for the {@code Object} methods.
+ * This can not be combined with {@link DefaultProxy} -- the processor reports an error and, if there is a generated class
+ *   anyway, the dynamic proxy is used instead of it so the methods are always structural.
+ * Buffer views (see {@link BufferView}) are not affected.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Structural {
+    
+    /** @return  {@code true} if the hash is computed once per proxy. */
+    boolean cacheHash() default true;
+    
+}
@@ -0,0 +1,224 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.reflection.exception.UReflectionException;
+
+/**
+ * Structural {@code toString()}, {@code hashCode()} and {@code equals(Object)} of an interface annotated with
+ *   {@link Structural}.
+ * 
+ * The getters (the methods without parameter that return a value) are found and bound as method handles 
+ *   once per interface so comparing, hashing and printing a proxy is a loop over the handles with no reflection.
+ * The hash is kept in the proxy handler so it is computed once per proxy.
+ * The layout is immutable and thread-safe.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class StructuralLayout {
+    
+    private static final ClassMetadata<StructuralLayout> layouts = new ClassMetadata<>(StructuralLayout::new);
+    
+    private static final MethodType GETTER_TYPE = methodType(Object.class, Object.class);
+    
+    private static final MethodHandle toString;
+    private static final MethodHandle hashCode;
+    private static final MethodHandle equals;
+    static {
+        try {
+            val lookup = MethodHandles.lookup();
+            val type   = ProxyDispatch.ACTION_TYPE.insertParameterTypes(0, StructuralLayout.class);
+            toString = lookup.findStatic(StructuralLayout.class, "toString", type);
+            hashCode = lookup.findStatic(StructuralLayout.class, "hashCode", type);
+            equals   = lookup.findStatic(StructuralLayout.class, "equals",   type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    private final String simpleName;
+    
+    private final String[] names;
+    
+    private final MethodHandle[] getters;
+    
+    private final boolean isHashCached;
+    
+    private final int stringCapacity;
+    
+    private StructuralLayout(Class<?> theInterface) {
+        val getters = new TreeMap<String, MethodHandle>();
+        for (Method method : theInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())
+             || (method.getParameterCount() != 0)
+             || (method.getReturnType() == void.class)
+             || ProxyDispatch.isObjectMethod(method)
+             || (method.getDeclaringClass() == WithToStringHashCodeEquals.class))
+                continue;
+            
+            // The same getter may be re-declared by another super interface.
+            getters.computeIfAbsent(method.getName(), __ -> getterOf(method));
+        }
+        
+        val structural = theInterface.getAnnotation(Structural.class);
+        
+        this.simpleName   = theInterface.getSimpleName();
+        this.names        = getters.keySet().toArray(new String[0]);
+        this.getters      = getters.values().toArray(new MethodHandle[0]);
+        this.isHashCached = (structural == null) || structural.cacheHash();
+        
+        // Each value is guessed to print in 8 characters.
+        int capacity = simpleName.length() + 2;
+        for (String name : names)
+            capacity += name.length() + 3 + 8;
+        this.stringCapacity = capacity;
+    }
+    
+    private static MethodHandle getterOf(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            // The interface is not public.
+            try {
+                return DefaultMethodInvoker.lookupFor(method.getDeclaringClass()).unreflect(method).asType(GETTER_TYPE);
+            } catch (IllegalAccessException | RuntimeException e2) {
+                throw new UReflectionException(e2);
+            }
+        }
+    }
+    
+    /**
+     * Returns the layout of the given interface.
+     * 
+     * @param theInterface  the interface.
+     * @return  the layout.
+     */
+    static StructuralLayout of(Class<?> theInterface) {
+        return layouts.get(theInterface);
+    }
+    
+    /**
+     * Returns the action (of the type {@link ProxyDispatch#ACTION_TYPE}) of the given {@code Object} method.
+     * 
+     * @param method  the method -- see {@link ProxyDispatch#isObjectMethod(Method)}.
+     * @return  the action.
+     */
+    MethodHandle actionOf(Method method) {
+        switch (method.getName()) {
+        case "toString": return insertArguments(toString, 0, this);
+        case "hashCode": return insertArguments(hashCode, 0, this);
+        default:         return insertArguments(equals,   0, this);
+        }
+    }
+    
+    private Object valueOf(int index, Object proxy) {
+        try {
+            return (Object)getters[index].invokeExact(proxy);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UReflectionException(e);
+        }
+    }
+    
+    private int hashOf(ProxyHandler handler, Object proxy) {
+        // Racy but benign -- the same way String caches its hash.
+        int hash = isHashCached ? handler.structuralHash() : 0;
+        if (hash == 0) {
+            hash = 1;
+            for (int i = 0; i < getters.length; i++)
+                hash = 31*hash + hashOfValue(valueOf(i, proxy));
+            if (isHashCached)
+                handler.structuralHash(hash);
+        }
+        return hash;
+    }
+    
+    private static int hashOfValue(Object value) {
+        if ((value == null) || !value.getClass().isArray())
+            return Objects.hashCode(value);
+        return Arrays.deepHashCode(new Object[] { value }) - 31;
+    }
+    
+    private static void append(StringBuilder builder, Object value) {
+        if ((value == null) || !value.getClass().isArray()) {
+            builder.append(value);
+            return;
+        }
+        // Without the brackets of the wrapping array.
+        val string = Arrays.deepToString(new Object[] { value });
+        builder.append(string, 1, string.length() - 1);
+    }
+    
+    //== Actions ==
+    
+    @SuppressWarnings("unused")
+    private static Object toString(StructuralLayout layout, ProxyHandler handler, Object proxy, Object[] args) {
+        val builder = new StringBuilder(layout.stringCapacity);
+        builder.append(layout.simpleName).append('[');
+        for (int i = 0; i < layout.getters.length; i++) {
+            if (i != 0)
+                builder.append(", ");
+            
+            builder.append(layout.names[i]).append('=');
+            append(builder, layout.valueOf(i, proxy));
+        }
+        return builder.append(']').toString();
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object hashCode(StructuralLayout layout, ProxyHandler handler, Object proxy, Object[] args) {
+        return layout.hashOf(handler, proxy);
+    }
+    
+    @SuppressWarnings("unused")
+    private static Object equals(StructuralLayout layout, ProxyHandler handler, Object proxy, Object[] args) {
+        val other = args[0];
+        if (other == proxy)
+            return true;
+        if ((other == null) || (other.getClass() != proxy.getClass()))
+            return false;
+        
+        val otherHandler = Proxy.getInvocationHandler(other);
+        if (otherHandler instanceof ProxyHandler) {
+            // Compare the hashes first when both are known -- the common case for cache keys.
+            val thisHash  = layout.isHashCached ? handler.structuralHash() : 0;
+            val otherHash = layout.isHashCached ? ((ProxyHandler)otherHandler).structuralHash() : 0;
+            if ((thisHash != 0) && (otherHash != 0) && (thisHash != otherHash))
+                return false;
+        }
+        for (int i = 0; i < layout.getters.length; i++) {
+            if (!Objects.deepEquals(layout.valueOf(i, proxy), layout.valueOf(i, other)))
+                return false;
+        }
+        return true;
+    }
+    
+}
@@ -0,0 +1,123 @@
+//  Copyright (c) 2017-2018 Nawapunth Manusitthipol (NawaMan).
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+package nawaman.utils.reflection;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import lombok.val;
+import nawaman.utils.common.KeyedClassMetadata;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+
+/**
+ * Strongly typed invokers of default methods -- implemented with {@link LambdaMetafactory}.
+ * 
+ * The single abstract method of the functional interface must take the object (the receiver) 
+ *   followed by the parameters of the default method. As the generated class calls the default method directly,
+ *   there is no boxing or argument array involved.
+ * 
+ * @author NawaMan -- nawa@nawaman.net
+ */
+final class TypedDefaultInvoker {
+    
+    private static final KeyedClassMetadata<Method, Object> invokers
+            = new KeyedClassMetadata<>((functionalInterface, method) -> create(DefaultMethodInvoker.of(method), functionalInterface));
+    
+    private TypedDefaultInvoker() {
+    }
+    
+    /**
+     * Returns the (cached) invoker of the default method as the given functional interface.
+     * 
+     * @param <F>                  the functional interface type.
+     * @param method               the method.
+     * @param functionalInterface  the functional interface.
+     * @return  the invoker.
+     * @throws NotDefaultMethodException  if there is no default method for the given method.
+     * @throws IllegalArgumentException   if the functional interface does not match the method.
+     */
+    static <F> F of(Method method, Class<F> functionalInterface) throws NotDefaultMethodException {
+        return functionalInterface.cast(invokers.get(functionalInterface, method));
+    }
+    
+    private static <F> F create(DefaultMethodInvoker invoker, Class<F> functionalInterface) {
+        if (!functionalInterface.isInterface())
+            throw new IllegalArgumentException("Functional interface is required: " + functionalInterface);
+        
+        val functionalMethod = ProxyBuilder.FunctionHandle.functionalMethodOf(functionalInterface);
+        if (functionalMethod == null)
+            throw new IllegalArgumentException("Functional interface is required: " + functionalInterface);
+        
+        val special          = invoker.special();
+        val samType          = methodType(functionalMethod.getReturnType(), functionalMethod.getParameterTypes());
+        val instantiatedType = instantiatedType(samType, special.type());
+        if (instantiatedType == null)
+            throw new IllegalArgumentException("The functional interface " + functionalInterface 
+                    + " does not match the method: " + invoker.method());
+        
+        try {
+            val caller   = DefaultMethodInvoker.lookupFor(invoker.defaultMethod().getDeclaringClass());
+            val callSite = LambdaMetafactory.metafactory(
+                                caller,
+                                functionalMethod.getName(),
+                                methodType(functionalInterface),
+                                samType,
+                                special,
+                                instantiatedType);
+            return functionalInterface.cast(callSite.getTarget().invoke());
+        } catch (Throwable e) {
+            // The lambda metafactory refuses this implementation (e.g., it is an older JVM) 
+            //   so falls back to a less efficient but working one.
+            return MethodHandleProxies.asInterfaceInstance(functionalInterface, special.asType(samType));
+        }
+    }
+    
+    /**
+     * Returns the SAM type with the reference types narrowed to the implementation types where possible
+     *   or null if the implementation cannot be adapted to the SAM type.
+     **/
+    private static MethodType instantiatedType(MethodType samType, MethodType implType) {
+        if (samType.parameterCount() != implType.parameterCount())
+            return null;
+        
+        MethodType instantiatedType = samType;
+        for (int i = 0; i < samType.parameterCount(); i++) {
+            val samParam  = samType.parameterType(i);
+            val implParam = implType.parameterType(i);
+            if (samParam == implParam)
+                continue;
+            if (samParam.isPrimitive() || implParam.isPrimitive())
+                return null;
+            if (!samParam.isAssignableFrom(implParam))
+                return null;
+            instantiatedType = instantiatedType.changeParameterType(i, implParam);
+        }
+        
+        val samReturn  = samType.returnType();
+        val implReturn = implType.returnType();
+        if ((samReturn != implReturn) && (samReturn != void.class)) {
+            if (samReturn.isPrimitive() || implReturn.isPrimitive() || !samReturn.isAssignableFrom(implReturn))
+                return null;
+            instantiatedType = instantiatedType.changeReturnType(implReturn);
+        }
+        return instantiatedType;
+    }
+    
+}
@@ -15,25 +15,29 @@
 package nawaman.utils.reflection;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableSortedMap;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
-import java.lang.invoke.MethodHandles.Lookup;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
+import java.util.Optional;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.val;
+import nawaman.utils.common.ClassMetadata;
+import nawaman.utils.common.KeyedClassMetadata;
 import nawaman.utils.reflection.exception.NotDefaultMethodException;
+import nawaman.utils.reflection.exception.UReflectionException;
 
 /**
  * Utility class relating to dynamic proxy.
@@ -42,45 +46,284 @@ import nawaman.utils.reflection.exception.NotDefaultMethodException;
  */
 public class UProxy {
     
-    private static final Random random = new Random();
+    /** The result of {@link #tryInvokeDefaultMethod(Object, Method, Object[])} when the method has no default. */
+    public static final Object NO_DEFAULT = new Object() {
+        @Override
+        public String toString() {
+            return "NO_DEFAULT";
+        }
+    };
+    
+    private static final ClassMetadata<ProxyFactory<?>> factories = new ClassMetadata<>(ProxyFactory::forInterface);
+    
+    private static final ClassMetadata<ProxyFactory<?>> memoizingFactories
+            = new ClassMetadata<>(theInterface -> builder(theInterface).memoize().toFactory());
+    
+    // By the target class (then by the interface) so the factories go away with the target class and its class loader.
+    private static final KeyedClassMetadata<Class<?>, ProxyFactory<?>> delegatingFactories
+            = new KeyedClassMetadata<>(UProxy::newDelegatingFactory);
+    
+    private static final KeyedClassMetadata<List<Class<?>>, ProxyFactory<?>> multiFactories
+            = new KeyedClassMetadata<>(UProxy::newMultiFactory);
     
     /**
      * Create a dynamic proxy for the given interface that call all default method.
      * 
+     * If the interface is annotated with {@link DefaultProxy} and no additional interface is given, 
+     *   an instance of the class generated at compile time is returned instead (when it was generated)
+     *   -- except for a {@link Structural} interface.
+     * 
      * @param <OBJECT>              the main interface type.
      * @param theGivenInterface     the main interface class.
      * @param additionalInterfaces  additional interfaces.
      * @return  the newly created dyamic proxy for the interface.
      */
-    @SuppressWarnings("unchecked")
     public static <OBJECT> OBJECT createDefaultProxy(@NonNull Class<OBJECT> theGivenInterface, Class<?> ... additionalInterfaces) {
-        val interfaces  = prepareInterfaces(theGivenInterface, additionalInterfaces);
-        val classLoader = theGivenInterface.getClassLoader();
-        val randomHash  = Math.abs(random.nextInt() / 2);
-        val theProxy    = (OBJECT)Proxy.newProxyInstance(classLoader, interfaces, (proxy, method, args)->{
-            // TODO Redirect this somewhere.
-            if ("toString".equals(method.getName()) && (method.getParameterCount() == 0)) {
-                if (proxy instanceof WithToStringHashCodeEquals)
-                    return ((WithToStringHashCodeEquals)proxy)._toString();
-                return theGivenInterface.getSimpleName() + "@" + randomHash;
-            }
-            if ("hashCode".equals(method.getName()) && (method.getParameterCount() == 0)) {
-                if (proxy instanceof WithToStringHashCodeEquals)
-                    return ((WithToStringHashCodeEquals)proxy)._hashCode();
-                return randomHash;
-            }
-            if ("equals".equals(method.getName()) && (method.getParameterCount() == 1)) {
-                if (proxy instanceof WithToStringHashCodeEquals)
-                    return ((WithToStringHashCodeEquals)proxy).equals(args[0]);
-                return proxy == args[0];
+        return cachedFactoryFor(theGivenInterface, additionalInterfaces).create();
+    }
+    
+    /**
+     * Create a dynamic proxy for the given interface that delegates the abstract methods to the target and 
+     *   call the default methods.
+     * 
+     * The target does not have to implement the interface -- each abstract method is delegated to the public method
+     *   of the target with the same name and parameter types.
+     * The methods of the target are resolved (and bound as method handles) once per target class 
+     *   when the first of such proxy is created so each call is forwarded without reflection.
+     * The {@code toString()}, {@code hashCode()} and {@code equals(Object)} are those of the proxy (not the target).
+     * 
+     * @param <OBJECT>           the interface type.
+     * @param theGivenInterface  the interface class.
+     * @param target             the target to delegate the abstract methods to.
+     * @return  the newly created dyamic proxy for the interface.
+     * @throws IllegalArgumentException  if the target does not implement any of the abstract methods.
+     */
+    @SuppressWarnings("unchecked")
+    public static <OBJECT> OBJECT createDelegatingProxy(@NonNull Class<OBJECT> theGivenInterface, @NonNull Object target) {
+        if (!theGivenInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theGivenInterface);
+        
+        val factory = (ProxyFactory<OBJECT>)delegatingFactories.get(target.getClass(), theGivenInterface);
+        return factory.createDelegating(target);
+    }
+    
+    private static <OBJECT> ProxyFactory<OBJECT> newDelegatingFactory(Class<?> targetClass, Class<OBJECT> theInterface) {
+        val interfaces = prepareInterfaces(theInterface);
+        return new ProxyFactory<OBJECT>(theInterface, interfaces, dispatch -> dispatch.delegate(targetClass));
+    }
+    
+    /**
+     * Create a struct proxy of the given interface -- the abstract methods are getters and with-ers of the properties.
+     * 
+     * A getter is an abstract method without parameter; its name is the property name.
+     * A with-er (for example, {@code withName(String)} for {@code name()}) returns a copy with the property changed.
+     * The properties are laid out in slots once per interface and each proxy stores the primitive values in 
+     *   a {@code long[]} and the references in an {@code Object[]} so getters do not involve any hashing.
+     * The default methods work as usual on top of the properties.
+     * 
+     * @param <OBJECT>           the interface type.
+     * @param theGivenInterface  the interface class.
+     * @param namesAndValues     the property names each followed by its value -- the missing ones are zero, false or null.
+     * @return  the newly created dyamic proxy for the interface.
+     * @throws IllegalArgumentException  if the interface has an abstract method that is neither a getter nor a with-er,
+     *                                     or if a name is unknown or a value is not of the property type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <OBJECT> OBJECT createStructProxy(@NonNull Class<OBJECT> theGivenInterface, Object ... namesAndValues) {
+        return (OBJECT)StructLayout.of(theGivenInterface).create(namesAndValues);
+    }
+    
+    /**
+     * Create a flyweight view of the records in the buffer through the given interface.
+     * 
+     * Each abstract method of the interface must be a getter of a primitive annotated with {@link Offset} --
+     *   it reads the value at the offset from the position of the view (in the byte order of the buffer) 
+     *   so the records are never copied.
+     * The record size is the end of the furthest value.
+     * The view implements {@link BufferView} to move it from record to record without allocating
+     *   and the default methods work as usual on top of the getters.
+     * The view is an instance of a class generated once per interface (not a dynamic proxy) so the getters return
+     *   the primitives without boxing. Its {@code toString()}, {@code hashCode()} and {@code equals(Object)} are 
+     *   those of the object (or of {@link WithToStringHashCodeEquals}); {@link Structural} does not apply.
+     * 
+     * @param <OBJECT>           the interface type.
+     * @param theGivenInterface  the interface class.
+     * @param buffer             the buffer -- for example, a {@code MappedByteBuffer}.
+     * @return  the newly created view positioned at the first record.
+     * @throws IllegalArgumentException  if an abstract method is not a primitive getter annotated with {@link Offset}.
+     */
+    public static <OBJECT> OBJECT createBufferView(@NonNull Class<OBJECT> theGivenInterface, @NonNull ByteBuffer buffer) {
+        return createBufferView(theGivenInterface, buffer, BufferLayout.of(theGivenInterface).recordSize());
+    }
+    
+    /**
+     * Create a flyweight view of the records of the given size in the buffer through the given interface.
+     * 
+     * @param <OBJECT>           the interface type.
+     * @param theGivenInterface  the interface class.
+     * @param buffer             the buffer -- for example, a {@code MappedByteBuffer}.
+     * @param recordSize         the record size in bytes -- to allow padding after the last value.
+     * @return  the newly created view positioned at the first record.
+     * @throws IllegalArgumentException  if an abstract method is not a primitive getter annotated with {@link Offset}
+     *                                     or the record size is smaller than the end of the furthest value.
+     * @see #createBufferView(Class, ByteBuffer)
+     */
+    @SuppressWarnings("unchecked")
+    public static <OBJECT> OBJECT createBufferView(@NonNull Class<OBJECT> theGivenInterface, @NonNull ByteBuffer buffer, int recordSize) {
+        return (OBJECT)BufferLayout.of(theGivenInterface).create(buffer, recordSize);
+    }
+    
+    /**
+     * Create a dynamic proxy for the given interface that call all default method and caches the results of 
+     *   the ones annotated with {@link Memoize} per proxy.
+     * 
+     * @param <OBJECT>              the main interface type.
+     * @param theGivenInterface     the main interface class.
+     * @param additionalInterfaces  additional interfaces.
+     * @return  the newly created dyamic proxy for the interface.
+     */
+    @SuppressWarnings("unchecked")
+    public static <OBJECT> OBJECT createMemoizingDefaultProxy(@NonNull Class<OBJECT> theGivenInterface, Class<?> ... additionalInterfaces) {
+        if ((additionalInterfaces == null) || (additionalInterfaces.length == 0))
+            return (OBJECT)memoizingFactories.get(theGivenInterface).create();
+        
+        return builder(theGivenInterface).withInterfaces(additionalInterfaces).memoize().build();
+    }
+    
+    /**
+     * Create a dynamic proxy for the given interface that call all default method -- the default methods that return 
+     *   a future are run on the default asynchronous executor (see {@link #defaultAsyncExecutor()}).
+     * 
+     * @param <OBJECT>           the main interface type.
+     * @param theGivenInterface  the main interface class.
+     * @return  the newly created dyamic proxy for the interface.
+     */
+    public static <OBJECT> OBJECT createAsyncDefaultProxy(@NonNull Class<OBJECT> theGivenInterface) {
+        return createAsyncDefaultProxy(theGivenInterface, defaultAsyncExecutor());
+    }
+    
+    /**
+     * Create a dynamic proxy for the given interface that call all default method -- the default methods that return 
+     *   a future ({@code CompletableFuture}, {@code CompletionStage} or {@code Future}) are run on the executor.
+     * 
+     * Such methods return a {@code CompletableFuture} right away so calls through the proxy can fan out in parallel.
+     * The other methods are run on the caller thread as usual.
+     * To create many of such proxies, use {@code builder(theGivenInterface).async(executor).toFactory()}.
+     * 
+     * @param <OBJECT>           the main interface type.
+     * @param theGivenInterface  the main interface class.
+     * @param executor           the executor.
+     * @return  the newly created dyamic proxy for the interface.
+     */
+    public static <OBJECT> OBJECT createAsyncDefaultProxy(@NonNull Class<OBJECT> theGivenInterface, @NonNull Executor executor) {
+        return builder(theGivenInterface).async(executor).build();
+    }
+    
+    /**
+     * Returns the default executor for the asynchronous default proxies.
+     * 
+     * This is a virtual-thread-per-task executor when virtual threads are available (Java 21 or later).
+     * Otherwise, it is a cached thread pool of daemon threads (as the methods are expected to block).
+     * 
+     * @return  the default executor.
+     */
+    public static Executor defaultAsyncExecutor() {
+        return AsyncExecutorHolder.executor;
+    }
+    
+    private static class AsyncExecutorHolder {
+        
+        static final Executor executor = createExecutor();
+        
+        private static Executor createExecutor() {
+            try {
+                val method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor)method.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // No virtual thread -- fall back to platform threads.
             }
             
-            return invokeDefaultMethod(proxy, method, args);
-        });
-        return (OBJECT)theProxy;
+            val threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                val thread = new Thread(runnable, "UProxy-async-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Returns a factory of dynamic proxies for the given interfaces that call all default method.
+     * 
+     * The interfaces are validated and the proxy class is linked once so creating a proxy with the factory 
+     *   is just a constructor call.
+     * 
+     * @param <OBJECT>              the main interface type.
+     * @param theGivenInterface     the main interface class.
+     * @param additionalInterfaces  additional interfaces.
+     * @return  the factory.
+     */
+    public static <OBJECT> ProxyFactory<OBJECT> factoryFor(@NonNull Class<OBJECT> theGivenInterface, Class<?> ... additionalInterfaces) {
+        return cachedFactoryFor(theGivenInterface, additionalInterfaces);
+    }
+    
+    /**
+     * Returns a builder of a dynamic proxy for the given interface -- this allows the abstract methods to be implemented.
+     * 
+     * @param <OBJECT>           the main interface type.
+     * @param theGivenInterface  the main interface class.
+     * @return  the builder.
+     */
+    public static <OBJECT> ProxyBuilder<OBJECT> builder(@NonNull Class<OBJECT> theGivenInterface) {
+        return new ProxyBuilder<OBJECT>(theGivenInterface);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <OBJECT> ProxyFactory<OBJECT> cachedFactoryFor(Class<OBJECT> theGivenInterface, Class<?>[] additionalInterfaces) {
+        if (!theGivenInterface.isInterface())
+            throw new IllegalArgumentException("Interface is required: " + theGivenInterface);
+        
+        if ((additionalInterfaces == null) || (additionalInterfaces.length == 0))
+            return (ProxyFactory<OBJECT>)factories.get(theGivenInterface);
+        
+        val key = asList(additionalInterfaces.clone());
+        return (ProxyFactory<OBJECT>)multiFactories.get(theGivenInterface, key);
+    }
+    
+    private static <OBJECT> ProxyFactory<OBJECT> newMultiFactory(Class<OBJECT> theInterface, List<Class<?>> additionalInterfaces) {
+        val interfaces = prepareInterfaces(theInterface, additionalInterfaces.toArray(new Class<?>[0]));
+        return new ProxyFactory<OBJECT>(theInterface, interfaces);
+    }
+    
+    /**
+     * Create an instance of a generated class that implements the given default interfaces.
+     * 
+     * Unlike {@link #createDefaultProxy(Class, Class...)}, the instance is not a dynamic proxy -- 
+     *   the generated class simply inherits the default methods so calls to it are ordinary interface calls.
+     * The class is generated once per interface set.
+     * The {@code toString()}, {@code hashCode()} and {@code equals(Object)} are redirected to 
+     *   {@link WithToStringHashCodeEquals} methods if the interface implements it.
+     * 
+     * @param <OBJECT>              the main interface type.
+     * @param theGivenInterface     the main interface class.
+     * @param additionalInterfaces  additional interfaces.
+     * @return  the newly created instance.
+     * @throws IllegalArgumentException  if any of the interfaces is not a default interface.
+     */
+    @SuppressWarnings("unchecked")
+    public static <OBJECT> OBJECT createDefaultInstance(@NonNull Class<OBJECT> theGivenInterface, Class<?> ... additionalInterfaces) {
+        val interfaces  = prepareInterfaces(theGivenInterface, additionalInterfaces);
+        val constructor = DefaultClassGenerator.constructorFor(interfaces);
+        try {
+            return (OBJECT)constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UReflectionException(e);
+        }
     }
     
-    private static <OBJECT> java.lang.Class<?>[] prepareInterfaces(Class<OBJECT> theGivenInterface,
+    static <OBJECT> java.lang.Class<?>[] prepareInterfaces(Class<OBJECT> theGivenInterface,
             Class<?>... additionalInterfaces) {
         if (!theGivenInterface.isInterface())
             throw new IllegalArgumentException("Interface is required: " + theGivenInterface);
@@ -112,82 +355,98 @@ public class UProxy {
      */
     public static Object invokeDefaultMethod(@NonNull Object proxy, @NonNull Method method, Object[] methodArgs) 
                     throws NotDefaultMethodException, Throwable {
-        // TODO - See if we can avoid this in case it is already done.
-        val defaultMethod  = getDefaultMethod(method);
-        val declaringClass = defaultMethod.getDeclaringClass();
-        val lookup         = getLookup(declaringClass);
-        return invoke(lookup, declaringClass, method, proxy, methodArgs);
-    }
-    
-    // Thanks to https://blog.jooq.org/2018/03/28/correct-reflective-access-to-interface-default-methods-in-java-8-9-10
-    private static Object invoke(Lookup lookup, Class<?> type, Method method, Object proxy, Object[] methodArgs)
-            throws IllegalAccessException, Throwable {
-        val mthdName       = method.getName();
-        val mthdReturnType = method.getReturnType();
-        val mthdParamTypes = method.getParameterTypes();
-        val mthdType       = MethodType.methodType(mthdReturnType, mthdParamTypes);
-        val result = lookup
-                .findSpecial(type, mthdName, mthdType, type)
-                .bindTo(proxy)
-                .invokeWithArguments(methodArgs);
-        return result;
-    }
-    
-    private static Method getPrivateLookupInMethod() throws NoSuchMethodException {
+        if (!ProxyMetrics.ENABLED)
+            return DefaultMethodInvoker.of(method).invoke(proxy, methodArgs);
+        
+        val startTime = System.nanoTime();
         try {
-            return MethodHandles.class.getMethod("privateLookupIn", new Class[] { Class.class, Lookup.class });
-        } catch (NoSuchMethodException e) {
-            return null;
+            return DefaultMethodInvoker.of(method).invoke(proxy, methodArgs);
+        } finally {
+            ProxyMetrics.defaultMethodInvoked(method, System.nanoTime() - startTime);
         }
     }
     
-    private static Lookup getLookup(Class<?> type) throws Exception {
-        val rawLookup = MethodHandles.lookup();
-        val method = getPrivateLookupInMethod();
-        if (method != null) {
-            val lookup = (Lookup)method.invoke(MethodHandles.class, type, rawLookup);
-            return lookup;
-        } else {
-            Constructor<Lookup> constructor = Lookup.class.getDeclaredConstructor(Class.class);
-            constructor.setAccessible(true);
-            val lookup = constructor.newInstance(type);
-            return lookup;
+    /**
+     * Invoke the default of an interface method of the proxy object given the methodArgs if there is one.
+     * 
+     * Unlike {@link #invokeDefaultMethod(Object, Method, Object[])}, nothing is thrown when the method has no default
+     *   so it is cheap to try a method speculatively and fall back:
+     * <pre>
+     * val result = UProxy.tryInvokeDefaultMethod(proxy, method, args);
+     * return (result != UProxy.NO_DEFAULT) ? result : fallback(proxy, method, args);
+     * </pre>
+     * A {@code void} method or a method that returns {@code null} gives {@code null} -- not {@link #NO_DEFAULT} -- 
+     *   so the fallback never runs after the default method did.
+     * 
+     * @param proxy       the proxy object.
+     * @param method      the method.
+     * @param methodArgs  the arguments for the invocation.
+     * @return  the invocation result or {@link #NO_DEFAULT} if the method is not a default method.
+     * @throws Throwable  any exception thrown by the default method.
+     */
+    public static Object tryInvokeDefaultMethod(@NonNull Object proxy, @NonNull Method method, Object[] methodArgs) 
+                    throws Throwable {
+        val invoker = DefaultMethodInvoker.ofOrNull(method);
+        if (invoker == null)
+            return NO_DEFAULT;
+        
+        if (!ProxyMetrics.ENABLED)
+            return invoker.invoke(proxy, methodArgs);
+        
+        val startTime = System.nanoTime();
+        try {
+            return invoker.invoke(proxy, methodArgs);
+        } finally {
+            ProxyMetrics.defaultMethodInvoked(method, System.nanoTime() - startTime);
         }
     }
     
-    private static Method getDefaultMethod(Method method) {
-        if (method.isDefault())
-            return method;
-        
-        for (Class<?> superInterface : method.getDeclaringClass().getInterfaces()) {
-            Method defaultMethod = getDefaultMethodFrom(method, superInterface);
-            if (defaultMethod != null)
-                return defaultMethod;
-        }
-        throw new NotDefaultMethodException(method);
+    /**
+     * Returns the invoker of the default of the given interface method if there is one.
+     * 
+     * The invoker is a method handle of the type {@code (Object proxy, Object[] methodArgs)Object} -- 
+     *   call it with {@code invokeExact} or {@code invoke}. Invokers are cached per method.
+     * 
+     * @param method  the method.
+     * @return  the invoker or empty if the method is not a default method.
+     */
+    public static Optional<MethodHandle> findDefaultInvoker(@NonNull Method method) {
+        val invoker = DefaultMethodInvoker.ofOrNull(method);
+        return (invoker != null) ? Optional.of(invoker.invoker()) : Optional.empty();
     }
     
-    private static Method getDefaultMethodFrom(Method method, Class<?> thisInterface) {
-        try {
-            Method foundMethod = thisInterface.getDeclaredMethod(method.getName(), method.getParameterTypes());
-            if (foundMethod.isDefault())
-                return foundMethod;
-        } catch (NoSuchMethodException | SecurityException e) {
-            
-        }
-        
-        for (Class<?> superInterface : thisInterface.getInterfaces()) {
-            Method defaultMethod = getDefaultMethodFrom(method, superInterface);
-            if (defaultMethod != null)
-                return defaultMethod;
-        }
-        
-        return null;
+    /**
+     * Returns a strongly typed invoker of the default method as an instance of the given functional interface.
+     * 
+     * The single abstract method of the functional interface must take the object followed by the parameters 
+     *   of the method and returns the method's return type. For example, for {@code int twice(int)} of 
+     *   {@code Calculator}:
+     * <pre>
+     * interface IntOp { int apply(Calculator calculator, int value); }
+     * 
+     * val twice = UProxy.defaultInvoker(Calculator.class.getMethod("twice", int.class), IntOp.class);
+     * twice.apply(calculator, 21);
+     * </pre>
+     * The invoker calls the default method directly -- without boxing or an argument array.
+     * Invokers are cached so it is cheap to call this method again for the same method and functional interface.
+     * 
+     * @param <F>                  the functional interface type.
+     * @param method               the method -- this has to be a default method or have one.
+     * @param functionalInterface  the functional interface.
+     * @return  the invoker.
+     * @throws NotDefaultMethodException  if the method is not a default method.
+     * @throws IllegalArgumentException   if the functional interface does not match the method.
+     */
+    public static <F> F defaultInvoker(@NonNull Method method, @NonNull Class<F> functionalInterface)
+                    throws NotDefaultMethodException {
+        return TypedDefaultInvoker.of(method, functionalInterface);
     }
     
     /**
      * Returns the map of method signature and the interface class it was in for all the non-default methods.
      * 
+     * The result is computed once per interface and the returned map is an unmodifiable view of it.
+     * 
      * @param <T>           the interface data type.
      * @param theInterface  the interface data class.
      * @return  the map of method signature to interface full name or {@code null} if the class is not an interface.
@@ -196,7 +455,7 @@ public class UProxy {
         if (!theInterface.isInterface())
             return null;
         
-        return new InterfaceChecker<T>(theInterface).ensureDefaultInterface();
+        return InterfaceChecker.of(theInterface).nonDefaultMethods();
     }
     
     /**
@@ -210,39 +469,103 @@ public class UProxy {
         if (!theInterface.isInterface())
             return false;
         
-        val nonDefaults = new InterfaceChecker<T>(theInterface).ensureDefaultInterface();
-        return nonDefaults.isEmpty();
+        return InterfaceChecker.of(theInterface).isDefaultInterface();
+    }
+    
+    /**
+     * Prepare the given interfaces ahead of time on the common fork-join pool -- see
+     *   {@link #prepare(ForkJoinPool, Class...)}.
+     * 
+     * @param interfaces  the interfaces.
+     * @return  the report.
+     */
+    public static PrepareReport prepare(Class<?> ... interfaces) {
+        return prepare(ForkJoinPool.commonPool(), interfaces);
+    }
+    
+    /**
+     * Prepare the given interfaces ahead of time so the first use of them does not pay for the one-time work.
+     * 
+     * For each interface, the hierarchy is scanned, the default methods are resolved and linked and 
+     *   (for a default interface) the proxy class and its dispatch table are created.
+     * The interfaces are prepared in parallel on the pool; this method returns when all of them are done.
+     * Run this during the start up so the work is not done on the live traffic.
+     * 
+     * @param pool        the pool to do the work on.
+     * @param interfaces  the interfaces.
+     * @return  the report of the timings, the interfaces that are not default interfaces and the failures.
+     */
+    public static PrepareReport prepare(@NonNull ForkJoinPool pool, Class<?> ... interfaces) {
+        return ProxyPreparer.prepare(pool, (interfaces != null) ? asList(interfaces) : emptyList());
+    }
+    
+    /**
+     * Prepare all the interfaces in the given package and its sub packages ahead of time on the common fork-join pool
+     *   -- the classes are found with the context class loader of the current thread.
+     * 
+     * @param packageName  the package name.
+     * @return  the report.
+     * @see #prepare(ForkJoinPool, Class...)
+     */
+    public static PrepareReport preparePackage(@NonNull String packageName) {
+        val contextLoader = Thread.currentThread().getContextClassLoader();
+        val classLoader   = (contextLoader != null) ? contextLoader : UProxy.class.getClassLoader();
+        return preparePackage(ForkJoinPool.commonPool(), classLoader, packageName);
+    }
+    
+    /**
+     * Prepare all the interfaces in the given package and its sub packages ahead of time.
+     * 
+     * The package is scanned in the directories and the jar files of the class loader;
+     *   the classes that can not be loaded are reported as failures.
+     * 
+     * @param pool         the pool to do the work on.
+     * @param classLoader  the class loader to find the classes with.
+     * @param packageName  the package name.
+     * @return  the report.
+     * @see #prepare(ForkJoinPool, Class...)
+     */
+    public static PrepareReport preparePackage(@NonNull ForkJoinPool pool, @NonNull ClassLoader classLoader, @NonNull String packageName) {
+        return ProxyPreparer.preparePackage(pool, classLoader, packageName);
     }
     
-    @AllArgsConstructor
-    private static class InterfaceChecker<T> {
+    private static class InterfaceChecker {
         
-        private Class<T> orgInterface;
+        private static final ClassMetadata<InterfaceChecker> checkers = new ClassMetadata<>(theInterface -> {
+            val tracer = ProxyTracing.TRACER;
+            if (tracer == null)
+                return new InterfaceChecker(theInterface);
+            
+            val trace   = tracer.beginInterfaceScan(theInterface);
+            val checker = new InterfaceChecker(theInterface);
+            tracer.endInterfaceScan(trace, checker.abstracts.size());
+            return checker;
+        });
         
-        private final Map<String, String> abstracts = new TreeMap<String, String>();
+        private final Map<MethodSignature, Class<?>> abstracts;
         
-        private final Set<String> defaults = new TreeSet<String>();
+        private final Map<String, String> nonDefaultMethods;
         
-        private Map<String, String> ensureDefaultInterface() {
-            ensureDefaultInterface(orgInterface);
-            defaults.forEach(m -> abstracts.remove(m));
-            return abstracts;
+        private InterfaceChecker(Class<?> orgInterface) {
+            val abstracts = DefaultResolution.of(orgInterface).abstracts();
+            
+            val nonDefaultMethods = new TreeMap<String, String>();
+            abstracts.forEach((signature, element) -> nonDefaultMethods.put(signature.toString(), element.getCanonicalName()));
+            
+            this.abstracts         = abstracts;
+            this.nonDefaultMethods = unmodifiableSortedMap(nonDefaultMethods);
         }
         
-        private void ensureDefaultInterface(Class<?> element) {
-            for (Method method : element.getDeclaredMethods()) {
-                if (method.isDefault() || !java.lang.reflect.Modifier.isAbstract(method.getModifiers()))
-                     defaults.add(methodSignature(method));
-                else abstracts.put(methodSignature(method), element.getCanonicalName());
-            }
-            
-            for (Class<?> intf : element.getInterfaces()) {
-                ensureDefaultInterface(intf);
-            }
+        static InterfaceChecker of(Class<?> theInterface) {
+            return checkers.get(theInterface);
+        }
+        
+        boolean isDefaultInterface() {
+            return abstracts.isEmpty();
         }
         
-        private static String methodSignature(Method method) {
-            return method.getName() + "(" + Arrays.toString(method.getParameterTypes()) + "): " + method.getReturnType();
+        Map<String, String> nonDefaultMethods() {
+            return nonDefaultMethods;
         }
     }
 }
@@ -14,13 +14,12 @@
 //  ========================================================================
 package nawaman.utils.reflection;
 
-import static java.util.Arrays.stream;
-
 import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.List;
 
 /**
  * Utility class relating to reflection.
@@ -37,11 +36,65 @@ public class UReflection {
      * @return  {@code true} if there is at least on annotation inthe reflect with the name.
      */
     public static boolean hasAnnotationWithName(Annotation[] annotations, String annotationName) {
-        boolean hasAnnotation = stream(annotations)
-                .filter(a-> a.annotationType().getSimpleName().equals(annotationName))
-                .findAny()
-                .isPresent();
-        return hasAnnotation;
+        for (Annotation annotation : annotations) {
+            if (AnnotationIndex.simpleNameOf(annotation).equals(annotationName))
+                return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Check if the element has an annotation with the given name.
+     * 
+     * The name can be the simple name, the canonical name or the binary name of the annotation type.
+     * The annotations of the element are indexed and cached so this is a constant-time check.
+     * 
+     * @param element         the annotated element -- such as a class, a field or a method.
+     * @param annotationName  the expected annotation name.
+     * @return  {@code true} if there is at least on annotation in the element with the name.
+     */
+    public static boolean hasAnnotationWithName(AnnotatedElement element, String annotationName) {
+        return AnnotationIndex.of(element).has(annotationName);
+    }
+    
+    /**
+     * Returns the annotation of the element with the given name.
+     * 
+     * The name can be the simple name, the canonical name or the binary name of the annotation type.
+     * If there are more than one such annotations, the first one is returned.
+     * 
+     * @param element         the annotated element -- such as a class, a field or a method.
+     * @param annotationName  the expected annotation name.
+     * @return  the annotation or null if there is none.
+     */
+    public static Annotation findAnnotationWithName(AnnotatedElement element, String annotationName) {
+        return AnnotationIndex.of(element).find(annotationName);
+    }
+    
+    /**
+     * Returns the public fields of the class that have an annotation with the given name.
+     * 
+     * The result is cached per class and name.
+     * 
+     * @param clzz            the class.
+     * @param annotationName  the expected annotation name.
+     * @return  the unmodifiable list of the fields.
+     */
+    public static List<Field> getFieldsWithAnnotationName(Class<?> clzz, String annotationName) {
+        return AnnotationIndex.fieldsWithAnnotationName(clzz, annotationName);
+    }
+    
+    /**
+     * Returns the public methods of the class that have an annotation with the given name.
+     * 
+     * The result is cached per class and name.
+     * 
+     * @param clzz            the class.
+     * @param annotationName  the expected annotation name.
+     * @return  the unmodifiable list of the methods.
+     */
+    public static List<Method> getMethodsWithAnnotationName(Class<?> clzz, String annotationName) {
+        return AnnotationIndex.methodsWithAnnotationName(clzz, annotationName);
     }
     
     /**
@@ -54,12 +107,8 @@ public class UReflection {
      * @param <T>  the type of the class.
      * @param <R>  the return type of the value.
      */
-    @SuppressWarnings("unchecked")
     public static <T, R> R getValueFromStaticFieldOrNull(Class<T> clzz, Field field) {
-        try { return (R)field.get(clzz); }
-        catch (IllegalArgumentException | IllegalAccessException e) {
-            return null;
-        }
+        return StaticAccessor.<R>of(field).get();
     }
     
     /**
@@ -72,13 +121,71 @@ public class UReflection {
      * @param <T>  the type of the class.
      * @param <R>  the return type of the method.
      */
-    @SuppressWarnings("unchecked")
     public static <T, R> R invokeStaticMethodOrNull(Class<T> clzz, Method method) {
-        try {
-            return (R)method.invoke(clzz);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            return null;
-        }
+        return StaticAccessor.<R>of(method).invoke();
+    }
+    
+    /**
+     * Reflectively invoke the static method with one argument - return null if fail for any reason.
+     * 
+     * @param clzz    the class.
+     * @param method  the method.
+     * @param arg1    the first argument.
+     * @return  the result value or null if fail.
+     * 
+     * @param <T>  the type of the class.
+     * @param <R>  the return type of the method.
+     */
+    public static <T, R> R invokeStaticMethodOrNull(Class<T> clzz, Method method, Object arg1) {
+        return StaticAccessor.<R>of(method).invoke(arg1);
+    }
+    
+    /**
+     * Reflectively invoke the static method with two arguments - return null if fail for any reason.
+     * 
+     * @param clzz    the class.
+     * @param method  the method.
+     * @param arg1    the first argument.
+     * @param arg2    the second argument.
+     * @return  the result value or null if fail.
+     * 
+     * @param <T>  the type of the class.
+     * @param <R>  the return type of the method.
+     */
+    public static <T, R> R invokeStaticMethodOrNull(Class<T> clzz, Method method, Object arg1, Object arg2) {
+        return StaticAccessor.<R>of(method).invoke(arg1, arg2);
+    }
+    
+    /**
+     * Reflectively invoke the static method with three arguments - return null if fail for any reason.
+     * 
+     * @param clzz    the class.
+     * @param method  the method.
+     * @param arg1    the first argument.
+     * @param arg2    the second argument.
+     * @param arg3    the third argument.
+     * @return  the result value or null if fail.
+     * 
+     * @param <T>  the type of the class.
+     * @param <R>  the return type of the method.
+     */
+    public static <T, R> R invokeStaticMethodOrNull(Class<T> clzz, Method method, Object arg1, Object arg2, Object arg3) {
+        return StaticAccessor.<R>of(method).invoke(arg1, arg2, arg3);
+    }
+    
+    /**
+     * Reflectively invoke the static method with the arguments in the array - return null if fail for any reason.
+     * 
+     * @param clzz    the class.
+     * @param method  the method.
+     * @param args    the arguments.
+     * @return  the result value or null if fail.
+     * 
+     * @param <T>  the type of the class.
+     * @param <R>  the return type of the method.
+     */
+    public static <T, R> R invokeStaticMethodWithArgumentsOrNull(Class<T> clzz, Method method, Object[] args) {
+        return StaticAccessor.<R>of(method).invokeWithArguments(args);
     }
     
     /**
@@ -36,6 +36,10 @@ public class NotDefaultMethodException extends UReflectionException {
     @Getter
     private Method method;
     
+    private final String messageTemplate;
+    
+    private String message;
+    
     /**
      * Construct the exception with the given template and the method.
      * 
@@ -44,8 +48,22 @@ public class NotDefaultMethodException extends UReflectionException {
      * @param notDefaultMethod  the method that is not a default method.
      */
     public NotDefaultMethodException(@NonNull String messageTemplate, @NonNull Method notDefaultMethod) {
-        super(format(messageTemplate, notDefaultMethod));
-        this.method = notDefaultMethod;
+        this(messageTemplate, notDefaultMethod, true);
+    }
+    
+    /**
+     * Construct the exception with the given template and the method with the option to skip capturing 
+     *   the stack trace -- the message is only formatted when it is asked for.
+     * 
+     * @param messageTemplate   the template of the message to be used with {@code String.format(...)} method
+     *                            with notDefaultMethod as a parameter.
+     * @param notDefaultMethod  the method that is not a default method.
+     * @param withStackTrace    {@code false} to skip capturing the stack trace.
+     */
+    public NotDefaultMethodException(@NonNull String messageTemplate, @NonNull Method notDefaultMethod, boolean withStackTrace) {
+        super(null, null, withStackTrace);
+        this.method          = notDefaultMethod;
+        this.messageTemplate = messageTemplate;
     }
     
     /**
@@ -57,4 +75,25 @@ public class NotDefaultMethodException extends UReflectionException {
         this(DEFAULT_MESSAGE_TEMPLATE, notDefaultMethod);
     }
     
+    /**
+     * Construct the exception using the default template with the option to skip capturing the stack trace.
+     * 
+     * @param notDefaultMethod  the method that is not a default method.
+     * @param withStackTrace    {@code false} to skip capturing the stack trace.
+     */
+    public NotDefaultMethodException(Method notDefaultMethod, boolean withStackTrace) {
+        this(DEFAULT_MESSAGE_TEMPLATE, notDefaultMethod, withStackTrace);
+    }
+    
+    @Override
+    public String getMessage() {
+        // Racy but benign -- the same message is formatted.
+        String message = this.message;
+        if (message == null) {
+            message = format(messageTemplate, method);
+            this.message = message;
+        }
+        return message;
+    }
+    
 }
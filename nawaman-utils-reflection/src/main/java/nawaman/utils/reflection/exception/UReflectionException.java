@@ -56,4 +56,19 @@ public class UReflectionException extends RuntimeException {
         super(cause);
     }
     
+    /**
+     * Construct the exception with the option to skip capturing the stack trace.
+     * 
+     * Without the stack trace, creating the exception costs about as much as creating any other object 
+     *   so it suits the exceptions that are expected and caught right away.
+     * Subclasses may also give a {@code null} message and override {@link #getMessage()} to format it lazily.
+     * 
+     * @param message             the exception message.
+     * @param cause               the cause exception.
+     * @param writableStackTrace  {@code false} to skip capturing the stack trace.
+     **/
+    protected UReflectionException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
+    
 }
@@ -0,0 +1,224 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class BufferViewTest {
+    
+    public static interface Trade {
+        
+        @Offset(0)  public long    id();
+        @Offset(8)  public int     quantity();
+        @Offset(12) public double  price();
+        @Offset(20) public boolean isBuy();
+        
+        public default double amount() {
+            return (isBuy() ? -1 : 1) * quantity() * price();
+        }
+        
+    }
+    
+    public static interface Pixel extends BufferView {
+        
+        @Offset(0) public byte  red();
+        @Offset(1) public byte  green();
+        @Offset(2) public byte  blue();
+        @Offset(3) public short alpha();
+        @Offset(5) public char  tag();
+        @Offset(7) public float weight();
+        
+    }
+    
+    public static interface NotView {
+        
+        public int value();
+        
+    }
+    
+    private static void putTrade(ByteBuffer buffer, long id, int quantity, double price, boolean isBuy) {
+        val position = buffer.position();
+        buffer.putLong(id).putInt(quantity).putDouble(price).put((byte)(isBuy ? 1 : 0));
+        buffer.position(position + 21);
+    }
+    
+    @Test
+    public void testView() {
+        val buffer = ByteBuffer.allocate(21*3);
+        putTrade(buffer, 1, 10, 1.5, true);
+        putTrade(buffer, 2, 20, 2.5, false);
+        putTrade(buffer, 3, 30, 3.5, true);
+        
+        val trade = UProxy.createBufferView(Trade.class, buffer);
+        val view  = (BufferView)trade;
+        assertEquals(21, view.recordSize());
+        assertSame(buffer, view.buffer());
+        
+        val ids     = new StringBuilder();
+        double total = 0;
+        for (view.moveTo(0); view.hasRecord(); view.next()) {
+            ids.append(trade.id());
+            total += trade.amount();
+        }
+        assertEquals("123", ids.toString());
+        assertEquals(-15 + 50 - 105, total, 0.0);
+        
+        view.moveTo(21);
+        assertEquals(2,     trade.id());
+        assertEquals(20,    trade.quantity());
+        assertEquals(2.5,   trade.price(), 0.0);
+        assertFalse(trade.isBuy());
+        assertEquals(21,    view.position());
+        assertEquals(42,    view.next().position());
+        assertFalse(view.next().hasRecord());
+    }
+    
+    @Test
+    public void testAllTypes_byteOrder() {
+        val buffer = ByteBuffer.allocate(11).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte)1).put((byte)2).put((byte)-3).putShort((short)-4).putChar('X').putFloat(0.5f);
+        
+        val pixel = UProxy.createBufferView(Pixel.class, buffer);
+        assertEquals(1,    pixel.red());
+        assertEquals(2,    pixel.green());
+        assertEquals(-3,   pixel.blue());
+        assertEquals(-4,   pixel.alpha());
+        assertEquals('X',  pixel.tag());
+        assertEquals(0.5f, pixel.weight(), 0.0f);
+        assertTrue(pixel.hasRecord());
+    }
+    
+    @Test
+    public void testRecordSize_wrap() {
+        val pixel = UProxy.createBufferView(Pixel.class, ByteBuffer.allocate(0), 16);
+        assertEquals(16, pixel.recordSize());
+        assertFalse(pixel.hasRecord());
+        
+        val buffer = ByteBuffer.allocate(32);
+        buffer.put(16, (byte)42);
+        assertSame(pixel, pixel.wrap(buffer).next());
+        assertEquals(42, pixel.red());
+        assertTrue(pixel.hasRecord());
+    }
+    
+    @Test
+    public void testMappedFile() throws Exception {
+        val file = File.createTempFile("trades", ".bin");
+        file.deleteOnExit();
+        try (val raf = new RandomAccessFile(file, "rw")) {
+            val channel = raf.getChannel();
+            val mapped  = channel.map(FileChannel.MapMode.READ_WRITE, 0, 21*100);
+            for (int i = 0; i < 100; i++)
+                putTrade(mapped, i, i, 1.0, false);
+            
+            val trade = UProxy.createBufferView(Trade.class, mapped);
+            val view  = (BufferView)trade;
+            long sum = 0;
+            for (view.moveTo(0); view.hasRecord(); view.next())
+                sum += trade.quantity();
+            assertEquals(4950, sum);
+        }
+    }
+    
+    public static interface Far {
+        
+        @Offset(40000) public int far();
+        
+    }
+    
+    @Test
+    public void testGeneratedClass() {
+        val buffer = ByteBuffer.allocate(40004);
+        buffer.putInt(40000, 42);
+        
+        val far  = UProxy.createBufferView(Far.class, buffer);
+        val view = (BufferView)far;
+        assertFalse(Proxy.isProxyClass(far.getClass()));
+        assertEquals(42,    far.far());
+        assertEquals(40004, view.recordSize());
+        assertEquals("Far@" + far.hashCode(), far.toString());
+        
+        assertFalse(view.moveTo(-1).hasRecord());
+        assertTrue(view.moveTo(0).hasRecord());
+        assertFalse(view.moveTo(1).hasRecord());
+    }
+    
+    // Package-private -- the generated class must be in the same runtime package to implement it (on all Java versions).
+    static interface PackageTick {
+        
+        @Offset(0) public int value();
+        
+    }
+    
+    @Test
+    public void testPackagePrivate() {
+        val buffer = ByteBuffer.allocate(8);
+        buffer.putInt(0, 1).putInt(4, 2);
+        
+        val tick = UProxy.createBufferView(PackageTick.class, buffer);
+        val view = (BufferView)tick;
+        assertFalse(Proxy.isProxyClass(tick.getClass()));
+        assertEquals(1, tick.value());
+        assertEquals(2, view.next().hasRecord() ? tick.value() : -1);
+    }
+    
+    @Test
+    public void testScanDoesNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        val threads  = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        val threadId = Thread.currentThread().getId();
+        
+        val count  = 1000;
+        val buffer = ByteBuffer.allocate(21*count);
+        for (int i = 0; i < count; i++)
+            putTrade(buffer, i, i, 1.0, (i % 2) == 0);
+        
+        val trade = UProxy.createBufferView(Trade.class, buffer);
+        val view  = (BufferView)trade;
+        double total = 0;
+        for (int round = 0; round < 200; round++)
+            total += scan(trade, view);
+        
+        val before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < 100; round++)
+            total += scan(trade, view);
+        val allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        
+        assertTrue(total != 0);
+        // Much less than a byte per record -- only the measurement itself may allocate.
+        assertTrue("Allocated: " + allocated, allocated < count);
+    }
+    
+    private static double scan(Trade trade, BufferView view) {
+        double total = 0;
+        for (view.moveTo(0); view.hasRecord(); view.next())
+            total += trade.id() + trade.quantity() + trade.price() + (trade.isBuy() ? 1 : 0);
+        return total;
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNotView() {
+        UProxy.createBufferView(NotView.class, ByteBuffer.allocate(4));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testRecordTooSmall() {
+        UProxy.createBufferView(Trade.class, ByteBuffer.allocate(4), 20);
+    }
+    
+}
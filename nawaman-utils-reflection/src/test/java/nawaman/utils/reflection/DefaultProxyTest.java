@@ -0,0 +1,96 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class DefaultProxyTest {
+    
+    @DefaultProxy
+    public static interface Greeter {
+        public default String greet(String name) {
+            return "Hello " + name + "!";
+        }
+    }
+    
+    @DefaultProxy
+    public static interface Named extends WithToStringHashCodeEquals {
+        public default String name() {
+            return "named";
+        }
+        @Override
+        public default String _toString() {
+            return "Named(" + name() + ")";
+        }
+        @Override
+        public default boolean _equals(Object obj) {
+            return (obj instanceof Named) && name().equals(((Named)obj).name());
+        }
+    }
+    
+    @DefaultProxy
+    static interface Box<T extends Comparable<T>> {
+        public default T max(T a, T b) {
+            return (a.compareTo(b) >= 0) ? a : b;
+        }
+    }
+    
+    public static interface NotAnnotated {
+        public default int fortyTwo() {
+            return 42;
+        }
+    }
+    
+    @Test
+    public void testGeneratedClass() {
+        val greeter = UProxy.createDefaultProxy(Greeter.class);
+        assertFalse(Proxy.isProxyClass(greeter.getClass()));
+        assertEquals(Greeter.class.getName() + "_DefaultProxy", greeter.getClass().getName());
+        assertEquals("Hello World!", greeter.greet("World"));
+        assertEquals("Greeter@" + greeter.hashCode(), greeter.toString());
+        assertNotEquals(greeter, UProxy.createDefaultProxy(Greeter.class));
+    }
+    
+    @Test
+    public void testGeneratedClass_withToStringHashCodeEquals() {
+        val named1 = UProxy.createDefaultProxy(Named.class);
+        val named2 = UProxy.createDefaultProxy(Named.class);
+        assertFalse(Proxy.isProxyClass(named1.getClass()));
+        assertEquals("Named(named)", named1.toString());
+        assertEquals("Named(named)".hashCode(), named1.hashCode());
+        assertEquals(named1, named2);
+    }
+    
+    @Test
+    public void testGeneratedClass_generic() {
+        @SuppressWarnings("unchecked")
+        Box<String> box = UProxy.createDefaultProxy(Box.class);
+        assertFalse(Proxy.isProxyClass(box.getClass()));
+        assertEquals("b", box.max("a", "b"));
+    }
+    
+    @Test
+    public void testGeneratedClass_factory() {
+        val factory = UProxy.factoryFor(Greeter.class);
+        assertSame(factory, UProxy.factoryFor(Greeter.class));
+        assertEquals(Greeter.class.getName() + "_DefaultProxy", factory.create().getClass().getName());
+    }
+    
+    @Test
+    public void testNotGenerated() {
+        assertTrue(Proxy.isProxyClass(UProxy.createDefaultProxy(NotAnnotated.class).getClass()));
+        
+        // With additional interfaces, it is a dynamic proxy.
+        assertTrue(Proxy.isProxyClass(UProxy.createDefaultProxy(Greeter.class, NotAnnotated.class).getClass()));
+    }
+    
+}
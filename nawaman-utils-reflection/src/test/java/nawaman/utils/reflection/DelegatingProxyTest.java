@@ -0,0 +1,137 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class DelegatingProxyTest {
+    
+    public static interface Named {
+        
+        public String name();
+        
+        public int age();
+        
+        public void rename(String name);
+        
+        public default String greeting() {
+            return "Hello " + name() + " (" + age() + ")";
+        }
+        
+    }
+    
+    public static class Person {
+        
+        private String name;
+        
+        private final int age;
+        
+        public Person(String name, int age) {
+            this.name = name;
+            this.age  = age;
+        }
+        
+        public String name() {
+            return name;
+        }
+        
+        public int age() {
+            return age;
+        }
+        
+        public void rename(String name) {
+            this.name = name;
+        }
+        
+        public String greeting() {
+            return "Not used";
+        }
+        
+    }
+    
+    @Test
+    public void testDelegate() {
+        val person = new Person("Jack", 42);
+        val named  = UProxy.createDelegatingProxy(Named.class, person);
+        assertEquals("Jack", named.name());
+        assertEquals(42,     named.age());
+        
+        // The default method is kept.
+        assertEquals("Hello Jack (42)", named.greeting());
+        
+        named.rename("Jill");
+        assertEquals("Jill", person.name());
+        assertEquals("Hello Jill (42)", named.greeting());
+    }
+    
+    @Test
+    public void testPerTarget() {
+        val jack = UProxy.createDelegatingProxy(Named.class, new Person("Jack", 42));
+        val jill = UProxy.createDelegatingProxy(Named.class, new Person("Jill", 24));
+        assertEquals("Hello Jack (42)", jack.greeting());
+        assertEquals("Hello Jill (24)", jill.greeting());
+        
+        // Object methods are those of the proxy.
+        assertTrue(jack.equals(jack));
+        assertFalse(jack.equals(jill));
+        assertNotEquals(jack.hashCode(), jill.hashCode());
+        assertEquals("Named@" + jack.hashCode(), jack.toString());
+    }
+    
+    public static interface Source<T> {
+        
+        public T get();
+        
+        public default List<T> twice() {
+            val list = new ArrayList<T>();
+            list.add(get());
+            list.add(get());
+            return list;
+        }
+        
+    }
+    
+    @Test
+    public void testNonPublicTarget() {
+        Supplier<String> supplier = () -> "Value";
+        @SuppressWarnings("unchecked")
+        Source<String> source = UProxy.createDelegatingProxy(Source.class, supplier);
+        assertEquals("[Value, Value]", source.twice().toString());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMissingMethod() {
+        UProxy.createDelegatingProxy(Named.class, "Not a person");
+    }
+    
+    public static class WrongPerson {
+        
+        public String name() {
+            return "Jack";
+        }
+        
+        public long age() {
+            return 42L;
+        }
+        
+        public void rename(String name) {
+        }
+        
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testIncompatibleReturnType() {
+        UProxy.createDelegatingProxy(Named.class, new WrongPerson());
+    }
+    
+}
@@ -0,0 +1,180 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class MemoizeTest {
+    
+    public static interface Config {
+        
+        public static final ConcurrentHashMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        
+        public static int count(String name) {
+            return counts.computeIfAbsent(name, __ -> new AtomicInteger()).incrementAndGet();
+        }
+        
+        @Memoize
+        public default String derived() {
+            return "derived-" + count("derived");
+        }
+        
+        @Memoize
+        public default String nothing() {
+            count("nothing");
+            return null;
+        }
+        
+        @Memoize(maxSize = 2)
+        public default String parse(String text, int times) {
+            count("parse:" + text);
+            val buffer = new StringBuilder();
+            for (int i = 0; i < times; i++)
+                buffer.append(text);
+            return buffer.toString();
+        }
+        
+        @Memoize
+        public default int sum(int[] values) {
+            count("sum");
+            int sum = 0;
+            for (int value : values)
+                sum += value;
+            return sum;
+        }
+        
+        public default String notMemoized() {
+            return "notMemoized-" + count("notMemoized");
+        }
+    }
+    
+    private static int countOf(String name) {
+        val count = Config.counts.get(name);
+        return (count == null) ? 0 : count.get();
+    }
+    
+    @Test
+    public void testNoParameter() {
+        Config.counts.clear();
+        val config1 = UProxy.createMemoizingDefaultProxy(Config.class);
+        val config2 = UProxy.createMemoizingDefaultProxy(Config.class);
+        
+        val derived = config1.derived();
+        assertEquals("derived-1", derived);
+        assertSame(derived, config1.derived());
+        assertEquals(1, countOf("derived"));
+        
+        // Per proxy.
+        assertEquals("derived-2", config2.derived());
+        assertEquals(2, countOf("derived"));
+        
+        assertNull(config1.nothing());
+        assertNull(config1.nothing());
+        assertEquals(1, countOf("nothing"));
+        
+        config1.notMemoized();
+        config1.notMemoized();
+        assertEquals(2, countOf("notMemoized"));
+    }
+    
+    @Test
+    public void testWithParameters_lru() {
+        Config.counts.clear();
+        val config = UProxy.createMemoizingDefaultProxy(Config.class);
+        assertEquals("aa", config.parse("a", 2));
+        assertEquals("aa", config.parse("a", 2));
+        assertEquals(1, countOf("parse:a"));
+        
+        assertEquals("aaa", config.parse("a", 3));
+        assertEquals(2, countOf("parse:a"));
+        
+        // (a,2) is used recently so (a,3) is evicted.
+        config.parse("a", 2);
+        config.parse("b", 1);
+        assertEquals(2, countOf("parse:a"));
+        config.parse("a", 2);
+        assertEquals(2, countOf("parse:a"));
+        config.parse("a", 3);
+        assertEquals(3, countOf("parse:a"));
+    }
+    
+    @Test
+    public void testArrayArguments() {
+        Config.counts.clear();
+        val config = UProxy.createMemoizingDefaultProxy(Config.class);
+        assertEquals(6, config.sum(new int[] { 1, 2, 3 }));
+        assertEquals(6, config.sum(new int[] { 1, 2, 3 }));
+        assertEquals(1, countOf("sum"));
+    }
+    
+    @Test
+    public void testArrayArguments_mutatedAfterCall() {
+        Config.counts.clear();
+        val config = UProxy.createMemoizingDefaultProxy(Config.class);
+        val values = new int[] { 1, 2, 3 };
+        assertEquals(6, config.sum(values));
+        
+        // The cached entry must not follow the array.
+        values[0] = 10;
+        assertEquals(15, config.sum(values));
+        assertEquals(2,  countOf("sum"));
+        
+        assertEquals(6,  config.sum(new int[] { 1, 2, 3 }));
+        assertEquals(15, config.sum(new int[] { 10, 2, 3 }));
+        assertEquals(2,  countOf("sum"));
+    }
+    
+    @Test
+    public void testNotMemoizingProxy() {
+        Config.counts.clear();
+        val config = UProxy.createDefaultProxy(Config.class);
+        config.derived();
+        config.derived();
+        assertEquals(2, countOf("derived"));
+    }
+    
+    @Test
+    public void testConcurrent() throws Exception {
+        Config.counts.clear();
+        val config   = UProxy.createMemoizingDefaultProxy(Config.class);
+        val first    = config.derived();
+        val threads  = 8;
+        val start    = new CountDownLatch(1);
+        val executor = Executors.newFixedThreadPool(threads);
+        val futures  = new ArrayList<Future<?>>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        assertSame(first, config.derived());
+                        assertEquals("xx", config.parse("x", 2));
+                        config.parse("y" + (i % 5), 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        }
+        assertEquals(1, countOf("derived"));
+    }
+    
+}
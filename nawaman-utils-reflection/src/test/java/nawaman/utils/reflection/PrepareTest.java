@@ -0,0 +1,57 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class PrepareTest {
+    
+    public static interface Ready {
+        public default String name() {
+            return "ready";
+        }
+    }
+    
+    public static interface NotReady extends Ready {
+        public int count();
+    }
+    
+    @Test
+    public void testPrepare() {
+        val report = UProxy.prepare(Ready.class, NotReady.class, String.class);
+        assertTrue(report.getTimings().containsKey(Ready.class));
+        assertTrue(report.getTimings().containsKey(NotReady.class));
+        assertEquals("{count([]): int=nawaman.utils.reflection.PrepareTest.NotReady}",
+                     report.getNonDefaultInterfaces().get(NotReady.class).toString());
+        assertFalse(report.getNonDefaultInterfaces().containsKey(Ready.class));
+        assertTrue(report.getFailures().get(String.class.getName()) instanceof IllegalArgumentException);
+        assertFalse(report.isAllDefault());
+        assertTrue(report.getElapsedNanos() > 0);
+        
+        assertTrue(UProxy.prepare(Ready.class).isAllDefault());
+        assertEquals("ready", UProxy.createDefaultProxy(Ready.class).name());
+    }
+    
+    @Test
+    public void testPreparePackage() {
+        val pool = new ForkJoinPool(4);
+        try {
+            val report = UProxy.preparePackage(pool, getClass().getClassLoader(), "nawaman.utils.reflection");
+            assertTrue(report.toString(), report.getTimings().containsKey(Ready.class));
+            assertTrue(report.toString(), report.getTimings().containsKey(UProxyTest.IGreet.class));
+            assertTrue(report.toString(), report.getNonDefaultInterfaces().containsKey(NotReady.class));
+            assertFalse(report.toString(), report.getTimings().containsKey(PrepareTest.class));
+            assertTrue(report.toString(), report.getFailures().isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+}
@@ -0,0 +1,159 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import lombok.val;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+
+@SuppressWarnings("javadoc")
+public class ProxyBuilderTest {
+    
+    public static interface Greeter {
+        public String name();
+        public String greet(String greeting);
+        public default String hello() {
+            return greet("Hello");
+        }
+    }
+    
+    @Test
+    public void testImplement() {
+        val greeter = UProxy.builder(Greeter.class)
+                .implement("name",  (Supplier<String>)() -> "World")
+                .implement("greet", (BiFunction<Greeter, String, String>)(self, greeting) -> greeting + " " + self.name())
+                .build();
+        assertEquals("World",       greeter.name());
+        assertEquals("Hi World",    greeter.greet("Hi"));
+        assertEquals("Hello World", greeter.hello());
+    }
+    
+    @Test
+    public void testImplement_withoutSelf() throws NoSuchMethodException {
+        val greeter = UProxy.builder(Greeter.class)
+                .implement(Greeter.class.getMethod("greet", String.class), (Function<String, String>)greeting -> greeting + "!")
+                .build();
+        assertEquals("Hello!", greeter.hello());
+        try {
+            greeter.name();
+            fail("Expect a NotDefaultMethodException.");
+        } catch (NotDefaultMethodException e) {
+        }
+    }
+    
+    public static interface Calculator {
+        public int add(int a, int b);
+        public default int twice(int a) {
+            return add(a, a);
+        }
+    }
+    
+    @Test
+    public void testImplement_primitive() {
+        val factory = UProxy.builder(Calculator.class)
+                .implement("add", (IntBinaryOperator)(a, b) -> a + b)
+                .toFactory();
+        val calculator = factory.create();
+        assertEquals(5,  calculator.add(2, 3));
+        assertEquals(42, calculator.twice(21));
+        assertTrue(factory.create() != calculator);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testImplement_noSuchMethod() {
+        UProxy.builder(Greeter.class)
+                .implement("notThere", (Supplier<String>)() -> "World")
+                .build();
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testImplement_notFunction() {
+        UProxy.builder(Greeter.class)
+                .implement("name", "World")
+                .build();
+    }
+    
+    @Test
+    public void testInterceptors() {
+        val log     = new ArrayList<String>();
+        val greeter = UProxy.builder(Greeter.class)
+                .implement("name",  (Supplier<String>)() -> "World")
+                .implement("greet", (BiFunction<Greeter, String, String>)(self, greeting) -> greeting + " " + self.name())
+                .before(method -> method.getName().equals("greet"), (proxy, method, args) -> log.add("before " + args[0]))
+                .around(method -> method.getName().equals("greet"), invocation -> {
+                    log.add("around " + invocation.getMethod().getName());
+                    return invocation.proceed(new Object[] { "Hi" });
+                })
+                .after(method -> method.getName().equals("greet"), (proxy, method, args, result) -> {
+                    log.add("after " + result);
+                    return result + "!";
+                })
+                .build();
+        
+        assertEquals("Hi World!", greeter.greet("Hello"));
+        assertEquals(Arrays.asList("before Hello", "around greet", "after Hi World"), log);
+        
+        // Methods that match no interceptor are not intercepted.
+        log.clear();
+        assertEquals("World", greeter.name());
+        assertTrue(log.isEmpty());
+        
+        // Default methods go through the interceptors too when they call the intercepted method.
+        assertEquals("Hi World!", greeter.hello());
+        assertEquals(3, log.size());
+    }
+    
+    @Test
+    public void testInterceptors_retry() {
+        val attempts   = new AtomicInteger();
+        val calculator = UProxy.builder(Calculator.class)
+                .implement("add", (IntBinaryOperator)(a, b) -> {
+                    if (attempts.incrementAndGet() < 3)
+                        throw new IllegalStateException("Not yet");
+                    return a + b;
+                })
+                .around(method -> method.getName().equals("add"), invocation -> {
+                    for (int i = 0; ; i++) {
+                        try {
+                            return invocation.proceed();
+                        } catch (IllegalStateException e) {
+                            if (i >= 5)
+                                throw e;
+                        }
+                    }
+                })
+                .build();
+        assertEquals(5, calculator.add(2, 3));
+        assertEquals(3, attempts.get());
+    }
+    
+    @Test
+    public void testInterceptors_beforeThrows() {
+        val calculator = UProxy.builder(Calculator.class)
+                .implement("add", (IntBinaryOperator)(a, b) -> a + b)
+                .before(method -> true, (proxy, method, args) -> {
+                    if ((args != null) && (args.length == 2) && ((Integer)args[0] < 0))
+                        throw new IllegalArgumentException("Negative: " + args[0]);
+                })
+                .build();
+        assertEquals(5, calculator.add(2, 3));
+        try {
+            calculator.add(-1, 3);
+            fail("Expect an exception.");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Negative: -1", e.getMessage());
+        }
+    }
+    
+}
@@ -0,0 +1,219 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import lombok.val;
+
+/**
+ * Concurrency tests of the proxies -- creation, default invocation and interface checks from many threads.
+ * 
+ * Run with {@code -Dnawaman.utils.reflection.scaling=true} to also print the scaling curves of the operations
+ *   under platform threads and virtual threads (Java 21+).
+ */
+@SuppressWarnings("javadoc")
+public class ProxyConcurrencyTest {
+    
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    
+    public static interface Adder {
+        public default int add(int a, int b) {
+            return a + b;
+        }
+    }
+    
+    public static interface Greeter {
+        public default String greet(String name) {
+            return "Hello " + name;
+        }
+    }
+    
+    public static interface Combined extends Adder, Greeter {
+        public default String both(int a, String name) {
+            return greet(name) + add(a, a);
+        }
+    }
+    
+    public static interface NotDefault extends Adder {
+        public int subtract(int a, int b);
+    }
+    
+    @Test
+    public void testHashSequence_scrambleIsUnique() {
+        val hashes = new HashSet<Integer>();
+        for (int i = 0; i < 1_000_000; i++) {
+            val hash = HashSequence.scramble(i);
+            assertTrue(hash >= 0);
+            assertTrue(hashes.add(hash));
+        }
+    }
+    
+    @Test
+    public void testConcurrentCreation_uniqueHashes() throws Exception {
+        val perThread = 10_000;
+        val hashes    = ConcurrentHashMap.<Integer>newKeySet();
+        runConcurrently(Executors.newFixedThreadPool(THREADS), THREADS, () -> {
+            for (int i = 0; i < perThread; i++) {
+                val adder = UProxy.createDefaultProxy(Adder.class);
+                assertTrue(hashes.add(adder.hashCode()));
+                assertEquals(i + 1, adder.add(i, 1));
+            }
+            return null;
+        });
+        assertEquals(THREADS * perThread, hashes.size());
+    }
+    
+    @Test
+    public void testConcurrentDispatch() throws Exception {
+        val shared = UProxy.createDefaultProxy(Combined.class);
+        runConcurrently(Executors.newFixedThreadPool(THREADS), THREADS, () -> {
+            val own = UProxy.createDefaultProxy(Combined.class);
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(2*i,                shared.add(i, i));
+                assertEquals("Hello " + i + 2*i, shared.both(i, "" + i));
+                assertEquals("Hello " + i,       own.greet("" + i));
+                assertEquals(shared, shared);
+                assertTrue(!shared.equals(own));
+            }
+            return null;
+        });
+    }
+    
+    @Test
+    public void testConcurrentIsDefaultInterface() throws Exception {
+        runConcurrently(Executors.newFixedThreadPool(THREADS), THREADS, () -> {
+            for (int i = 0; i < 1_000; i++) {
+                assertTrue(UProxy.isDefaultInterface(Combined.class));
+                assertTrue(!UProxy.isDefaultInterface(NotDefault.class));
+                assertEquals(1, UProxy.getNonDefaultMethods(NotDefault.class).size());
+            }
+            return null;
+        });
+    }
+    
+    @Test
+    public void testVirtualThreads() throws Exception {
+        val executor = newVirtualThreadExecutor();
+        assumeTrue("Virtual threads are not available.", executor != null);
+        
+        val tasks  = 10_000;
+        val hashes = ConcurrentHashMap.<Integer>newKeySet();
+        runConcurrently(executor, tasks, () -> {
+            val combined = UProxy.createDefaultProxy(Combined.class);
+            assertTrue(hashes.add(combined.hashCode()));
+            assertEquals("Hello V4", combined.both(2, "V"));
+            assertTrue(UProxy.isDefaultInterface(Combined.class));
+            return null;
+        });
+        assertEquals(tasks, hashes.size());
+    }
+    
+    @Test
+    public void testScaling() throws Exception {
+        assumeTrue(Boolean.getBoolean("nawaman.utils.reflection.scaling"));
+        
+        val adder = UProxy.createDefaultProxy(Adder.class);
+        printScaling("createDefaultProxy", () -> UProxy.createDefaultProxy(Adder.class));
+        printScaling("default invocation", () -> adder.add(1, 2));
+        printScaling("isDefaultInterface", () -> UProxy.isDefaultInterface(Combined.class));
+        
+        val random = new Random();
+        printScaling("shared Random (old hash)", () -> Math.abs(random.nextInt() / 2));
+        printScaling("HashSequence (new hash)",  () -> HashSequence.next());
+    }
+    
+    //== Helpers ==
+    
+    private static void runConcurrently(ExecutorService executor, int tasks, Callable<Void> task) throws Exception {
+        try {
+            val start   = new CountDownLatch(1);
+            val futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            val method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    // Prints the throughput for 1, 2, 4, ... platform threads and as many virtual threads (when available)
+    //   and flags the sub-linear scaling as a contention point.
+    private static void printScaling(String name, Runnable operation) throws Exception {
+        System.out.println("== " + name + " ==");
+        
+        // Warm up so the single thread run (the base of the efficiency) is not measured cold.
+        measure(Executors.newSingleThreadExecutor(), 1, operation);
+        
+        printCurve("platform", threads -> Executors.newFixedThreadPool(threads), operation);
+        
+        val virtualThreads = newVirtualThreadExecutor();
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+            printCurve("virtual", threads -> newVirtualThreadExecutor(), operation);
+        }
+    }
+    
+    private static void printCurve(String kind, Function<Integer, ExecutorService> executors, Runnable operation) throws Exception {
+        val cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            val throughput = measure(executors.apply(threads), threads, operation);
+            if (threads == 1)
+                single = throughput;
+            val efficiency = throughput / (single * threads);
+            System.out.printf("%4d %-8s threads: %12.0f ops/ms  (%3.0f%% of linear)%s%n",
+                    threads, kind, throughput, efficiency * 100, (efficiency < 0.5) ? "  <-- contention" : "");
+        }
+    }
+    
+    // Returns the total operations per millisecond of all the threads.
+    private static double measure(ExecutorService executor, int threads, Runnable operation) throws Exception {
+        val durationMs = 200L;
+        val count      = new AtomicLong();
+        runConcurrently(executor, threads, () -> {
+            // The clock starts after the start latch is released so the thread start-up is not measured.
+            val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+            long local = 0;
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < 100; i++)
+                    operation.run();
+                local += 100;
+            }
+            count.addAndGet(local);
+            return null;
+        });
+        return (double)count.get() / durationMs;
+    }
+
+}
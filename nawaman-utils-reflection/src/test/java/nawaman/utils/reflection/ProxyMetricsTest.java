@@ -0,0 +1,111 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import lombok.val;
+import nawaman.utils.reflection.ProxyMetrics.Cache;
+import nawaman.utils.reflection.ProxyMetrics.Histogram;
+
+@SuppressWarnings("javadoc")
+public class ProxyMetricsTest {
+    
+    public static interface Counter {
+        public default int next(int value) {
+            return value + 1;
+        }
+    }
+    
+    @Before
+    public void reset() {
+        ProxyMetrics.reset();
+    }
+    
+    @Test
+    public void testHistogram() {
+        val histogram = new Histogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(100);
+        
+        assertEquals(4,   histogram.getCount());
+        assertEquals(104, histogram.getTotalNanos());
+        assertEquals(26.0, histogram.getMeanNanos(), 0.0);
+        
+        val expected = new long[Histogram.BUCKET_COUNT];
+        expected[0] = 1;
+        expected[1] = 1;
+        expected[2] = 1;
+        expected[7] = 1;
+        assertArrayEquals(expected, histogram.getBucketCounts());
+        
+        assertEquals(2,   histogram.getPercentileNanos(50));
+        assertEquals(4,   histogram.getPercentileNanos(75));
+        assertEquals(128, histogram.getPercentileNanos(100));
+    }
+    
+    @Test
+    public void testRecording() throws Exception {
+        val method = Counter.class.getMethod("next", int.class);
+        ProxyMetrics.proxyCreated(Counter.class);
+        ProxyMetrics.invoked(method);
+        ProxyMetrics.invoked(method);
+        ProxyMetrics.defaultMethodInvoked(method, 10);
+        ProxyMetrics.cacheHit(Cache.DISPATCH);
+        ProxyMetrics.cacheHit(Cache.DISPATCH);
+        ProxyMetrics.cacheHit(Cache.DISPATCH);
+        ProxyMetrics.cacheMiss(Cache.DISPATCH);
+        
+        assertEquals(1L, (long)ProxyMetrics.getProxiesCreated().get(Counter.class));
+        assertEquals(2L, (long)ProxyMetrics.getInvocations().get(method));
+        assertEquals(1L, ProxyMetrics.getDefaultMethodLatencies().get(method).getCount());
+        assertEquals(0.75, ProxyMetrics.getHitRate(Cache.DISPATCH), 0.0);
+        assertEquals(0.0,  ProxyMetrics.getHitRate(Cache.DEFAULT_METHOD_INVOKER), 0.0);
+        
+        ProxyMetrics.reset();
+        assertTrue(ProxyMetrics.getInvocations().isEmpty());
+        assertEquals(0, ProxyMetrics.getHits(Cache.DISPATCH));
+    }
+    
+    @Test
+    public void testDisabled() throws Throwable {
+        // As in production -- the metrics are only enabled in the metricsTest task.
+        assumeFalse(ProxyMetrics.isEnabled());
+        
+        val method  = Counter.class.getMethod("next", int.class);
+        val counter = UProxy.createDefaultProxy(Counter.class);
+        assertEquals(2, counter.next(1));
+        assertEquals(4, UProxy.invokeDefaultMethod(counter, method, new Object[] { 3 }));
+        
+        assertTrue(ProxyMetrics.getProxiesCreated().isEmpty());
+        assertTrue(ProxyMetrics.getInvocations().isEmpty());
+        assertTrue(ProxyMetrics.getDefaultMethodLatencies().isEmpty());
+        assertEquals(0, ProxyMetrics.getHits(Cache.DISPATCH));
+        assertEquals(0, ProxyMetrics.getMisses(Cache.DISPATCH));
+    }
+    
+    @Test
+    public void testProxyMetrics() throws Throwable {
+        assumeTrue(ProxyMetrics.isEnabled());
+        
+        val method  = Counter.class.getMethod("next", int.class);
+        val counter = UProxy.createDefaultProxy(Counter.class);
+        assertEquals(2, counter.next(1));
+        assertEquals(3, counter.next(2));
+        assertEquals(4, UProxy.invokeDefaultMethod(counter, method, new Object[] { 3 }));
+        
+        assertEquals(1L, (long)ProxyMetrics.getProxiesCreated().get(Counter.class));
+        assertEquals(2L, (long)ProxyMetrics.getInvocations().get(method));
+        assertEquals(1L, ProxyMetrics.getDefaultMethodLatencies().get(method).getCount());
+        assertTrue(ProxyMetrics.getHits(Cache.DISPATCH) >= 1);
+        assertTrue(ProxyMetrics.getHits(Cache.DEFAULT_METHOD_INVOKER) >= 1);
+    }
+    
+}
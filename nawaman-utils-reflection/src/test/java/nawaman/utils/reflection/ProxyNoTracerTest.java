@@ -0,0 +1,38 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import lombok.val;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+
+@SuppressWarnings("javadoc")
+public class ProxyNoTracerTest {
+    
+    public static interface Untraced {
+        public default String name() {
+            return "untraced";
+        }
+        public String abstractName();
+    }
+    
+    @Test
+    public void testNoTracer() {
+        // The tests run without a tracer (as in production) -- see ProxyTracerTest for the ones with.
+        assertNull(ProxyTracing.TRACER);
+        
+        val untraced = UProxy.createDefaultProxy(Untraced.class);
+        assertEquals("untraced", untraced.name());
+        try {
+            untraced.abstractName();
+            fail("Expect a NotDefaultMethodException.");
+        } catch (NotDefaultMethodException e) {
+            assertEquals("abstractName", e.getMethod().getName());
+        }
+        assertEquals(1, UProxy.getNonDefaultMethods(Untraced.class).size());
+    }
+    
+}
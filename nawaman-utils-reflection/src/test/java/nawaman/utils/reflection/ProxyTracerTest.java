@@ -0,0 +1,83 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import lombok.val;
+import nawaman.utils.reflection.exception.NotDefaultMethodException;
+
+@SuppressWarnings("javadoc")
+public class ProxyTracerTest {
+    
+    /** The tracer registered in src/test/tracer -- only on the classpath of the tracerTest task (in its own JVM). */
+    public static class RecordingTracer implements ProxyTracer {
+        
+        static final List<String> traces = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public Object beginProxyClassCreation(Class<?>[] interfaces) {
+            return interfaces[0].getSimpleName();
+        }
+        @Override
+        public void endProxyClassCreation(Object trace, Class<?> proxyClass) {
+            traces.add("proxyClass:" + trace);
+        }
+        @Override
+        public Object beginDefaultMethodResolution(Method method) {
+            return method.getName();
+        }
+        @Override
+        public void endDefaultMethodResolution(Object trace, Method defaultMethod) {
+            traces.add("resolve:" + trace + "=" + ((defaultMethod != null) ? "default" : "none"));
+        }
+        @Override
+        public Object beginInterfaceScan(Class<?> theInterface) {
+            return theInterface.getSimpleName();
+        }
+        @Override
+        public void endInterfaceScan(Object trace, int nonDefaultMethodCount) {
+            traces.add("scan:" + trace + "=" + nonDefaultMethodCount);
+        }
+        @Override
+        public void notDefaultMethod(Method method) {
+            traces.add("notDefault:" + method.getName());
+        }
+    }
+    
+    public static interface Traced {
+        public default String name() {
+            return "traced";
+        }
+        public String abstractName();
+    }
+    
+    @Test
+    public void testTraces() {
+        assertTrue(ProxyTracing.TRACER instanceof RecordingTracer);
+        
+        val traced = UProxy.createDefaultProxy(Traced.class);
+        assertEquals("traced", traced.name());
+        try {
+            traced.abstractName();
+            fail("Expect a NotDefaultMethodException.");
+        } catch (NotDefaultMethodException e) {
+        }
+        UProxy.isDefaultInterface(Traced.class);
+        
+        val traces = RecordingTracer.traces;
+        assertTrue(traces.toString(), traces.contains("proxyClass:Traced"));
+        assertTrue(traces.toString(), traces.contains("resolve:name=default"));
+        assertTrue(traces.toString(), traces.contains("resolve:abstractName=none"));
+        assertTrue(traces.toString(), traces.contains("notDefault:abstractName"));
+        assertTrue(traces.toString(), traces.contains("scan:Traced=1"));
+        assertEquals(1, traces.stream().filter("notDefault:abstractName"::equals).count());
+    }
+    
+}
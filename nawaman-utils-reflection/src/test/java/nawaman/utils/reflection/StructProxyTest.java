@@ -0,0 +1,129 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class StructProxyTest {
+    
+    public static interface Point {
+        
+        public int x();
+        
+        public int y();
+        
+        public Point withX(int x);
+        
+        public Point withY(int y);
+        
+        public default int distance() {
+            return Math.abs(x()) + Math.abs(y());
+        }
+        
+    }
+    
+    public static interface Everything {
+        
+        public boolean bool();
+        public byte    b();
+        public short   s();
+        public char    c();
+        public int     i();
+        public long    l();
+        public float   f();
+        public double  d();
+        public String  text();
+        
+        public Everything withText(String text);
+        
+    }
+    
+    public static interface NotStruct {
+        
+        public int x();
+        
+        public void doSomething(int value);
+        
+    }
+    
+    @Test
+    public void testGetters() {
+        val point = UProxy.createStructProxy(Point.class, "x", 3, "y", -4);
+        assertEquals(3,  point.x());
+        assertEquals(-4, point.y());
+        assertEquals(7,  point.distance());
+    }
+    
+    @Test
+    public void testWither() {
+        val point = UProxy.createStructProxy(Point.class, "x", 3, "y", 4);
+        val moved = point.withX(10);
+        assertNotSame(point, moved);
+        assertEquals(3,  point.x());
+        assertEquals(10, moved.x());
+        assertEquals(4,  moved.y());
+        assertEquals(14, moved.distance());
+    }
+    
+    @Test
+    public void testAllTypes() {
+        val all = UProxy.createStructProxy(Everything.class,
+                "bool", true,
+                "b",    (byte)-1,
+                "s",    (short)-2,
+                "c",    'C',
+                "i",    -3,
+                "l",    Long.MIN_VALUE,
+                "f",    -1.5f,
+                "d",    Math.PI,
+                "text", "Text");
+        assertTrue(all.bool());
+        assertEquals(-1,             all.b());
+        assertEquals(-2,             all.s());
+        assertEquals('C',            all.c());
+        assertEquals(-3,             all.i());
+        assertEquals(Long.MIN_VALUE, all.l());
+        assertEquals(-1.5f,          all.f(), 0.0f);
+        assertEquals(Math.PI,        all.d(), 0.0);
+        assertEquals("Text",         all.text());
+        assertEquals("Other",        all.withText("Other").text());
+        assertEquals(Math.PI,        all.withText("Other").d(), 0.0);
+    }
+    
+    @Test
+    public void testMissingValues() {
+        val all = UProxy.createStructProxy(Everything.class);
+        assertFalse(all.bool());
+        assertEquals(0,   all.i());
+        assertEquals(0.0, all.d(), 0.0);
+        assertNull(all.text());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnknownProperty() {
+        UProxy.createStructProxy(Point.class, "z", 1);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testWrongType() {
+        UProxy.createStructProxy(Point.class, "x", 1L);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMissingValue() {
+        UProxy.createStructProxy(Point.class, "x", 1, "y");
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNotStruct() {
+        UProxy.createStructProxy(NotStruct.class);
+    }
+    
+}
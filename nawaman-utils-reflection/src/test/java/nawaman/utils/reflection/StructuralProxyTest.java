@@ -0,0 +1,127 @@
+package nawaman.utils.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import lombok.val;
+
+@SuppressWarnings("javadoc")
+public class StructuralProxyTest {
+    
+    @Structural
+    public static interface Point {
+        
+        public int y();
+        
+        public int x();
+        
+        public Point withX(int x);
+        
+    }
+    
+    @Test
+    public void testStruct() {
+        val point1 = UProxy.createStructProxy(Point.class, "x", 1, "y", 2);
+        val point2 = UProxy.createStructProxy(Point.class, "x", 1, "y", 2);
+        val point3 = point1.withX(3);
+        
+        assertEquals("Point[x=1, y=2]", point1.toString());
+        assertEquals("Point[x=3, y=2]", point3.toString());
+        
+        assertTrue(point1.equals(point2));
+        assertEquals(point1.hashCode(), point2.hashCode());
+        assertFalse(point1.equals(point3));
+        assertNotEquals(point1.hashCode(), point3.hashCode());
+        assertFalse(point1.equals(null));
+        assertFalse(point1.equals("Point[x=1, y=2]"));
+        
+        val map = new HashMap<Point, String>();
+        map.put(point1, "One");
+        assertEquals("One", map.get(point2));
+    }
+    
+    @Structural
+    public static interface Tagged extends WithToStringHashCodeEquals {
+        
+        public default String name() {
+            return "Tag";
+        }
+        
+        public default int[] values() {
+            return new int[] { 1, 2 };
+        }
+        
+    }
+    
+    @Test
+    public void testDefaultGetters() {
+        val tagged1 = UProxy.createDefaultProxy(Tagged.class);
+        val tagged2 = UProxy.createDefaultProxy(Tagged.class);
+        
+        // The structural methods take precedence; arrays are compared and printed by content.
+        assertEquals("Tagged[name=Tag, values=[1, 2]]", tagged1.toString());
+        assertTrue(tagged1.equals(tagged2));
+        assertEquals(tagged1.hashCode(), tagged2.hashCode());
+        assertEquals(1, new HashSet<Tagged>(Arrays.asList(tagged1, tagged2)).size());
+        
+        // The WithToStringHashCodeEquals methods are still there.
+        assertFalse(tagged1._equals(tagged2));
+    }
+    
+    @Structural
+    public static interface Counted {
+        
+        public default int count() {
+            return Counter.counter.incrementAndGet();
+        }
+        
+    }
+    
+    public static class Counter {
+        static final AtomicInteger counter = new AtomicInteger();
+    }
+    
+    @Structural(cacheHash = false)
+    public static interface UncachedCounted {
+        
+        public default int count() {
+            return Counter.counter.incrementAndGet();
+        }
+        
+    }
+    
+    @Test
+    public void testCachedHash() {
+        val counted = UProxy.createDefaultProxy(Counted.class);
+        assertEquals(counted.hashCode(), counted.hashCode());
+        
+        val uncounted = UProxy.createDefaultProxy(UncachedCounted.class);
+        assertNotEquals(uncounted.hashCode(), uncounted.hashCode());
+    }
+    
+    public static interface Plain {
+        
+        public default int value() {
+            return 42;
+        }
+        
+    }
+    
+    @Test
+    public void testNotStructural() {
+        val plain1 = UProxy.createDefaultProxy(Plain.class);
+        val plain2 = UProxy.createDefaultProxy(Plain.class);
+        assertFalse(plain1.equals(plain2));
+        assertEquals("Plain@" + plain1.hashCode(), plain1.toString());
+    }
+    
+}
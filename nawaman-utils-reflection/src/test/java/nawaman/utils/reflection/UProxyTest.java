@@ -4,6 +4,16 @@ import static java.lang.String.format;
 import static nawaman.utils.reflection.UProxy.createDefaultProxy;
 import static nawaman.utils.reflection.UProxy.invokeDefaultMethod;
 
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -33,6 +43,35 @@ public class UProxyTest {
         assertEquals("Hello world!", result);
     }
     
+    public static interface HasPrimitiveDefaultMethods {
+        
+        public default int add(int a, int b) {
+            return a + b;
+        }
+        
+        public default void doNothing() {
+        }
+    }
+    
+    @Test
+    public void testInvokeDefaultMethod_primitiveAndVoid() throws NotDefaultMethodException, Throwable {
+        val obj = (HasPrimitiveDefaultMethods) new HasPrimitiveDefaultMethods() {
+        };
+        val addMethod  = HasPrimitiveDefaultMethods.class.getDeclaredMethod("add", int.class, int.class);
+        val voidMethod = HasPrimitiveDefaultMethods.class.getDeclaredMethod("doNothing");
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 2, invokeDefaultMethod(obj, addMethod, new Object[] { i, 2 }));
+            assertEquals(null,  invokeDefaultMethod(obj, voidMethod, null));
+        }
+    }
+    
+    @Test
+    public void testInvokeDefaultMethod_invokerIsCached() throws NoSuchMethodException {
+        val method1 = HasDefaultMethod.class.getDeclaredMethod("getMessage");
+        val method2 = HasDefaultMethod.class.getDeclaredMethod("getMessage");
+        assertTrue(DefaultMethodInvoker.of(method1) == DefaultMethodInvoker.of(method2));
+    }
+    
     public static interface HasOverrideDefaultMethod extends HasDefaultMethod {
         
         public default String getMessage() {
@@ -91,6 +130,50 @@ public class UProxyTest {
         }
     }
     
+    @Test
+    public void testTryInvokeDefaultMethod() throws Throwable {
+        val obj            = UProxy.createDefaultProxy(HasNoDefaultMethod.class);
+        val defaultMethod  = HasDefaultMethod.class.getDeclaredMethod("getMessage");
+        val abstractMethod = HasNoDefaultMethod.class.getDeclaredMethod("getNoDefaultMessage");
+        assertEquals("Hello world!", UProxy.tryInvokeDefaultMethod(obj, defaultMethod, null));
+        assertTrue(UProxy.tryInvokeDefaultMethod(obj, abstractMethod, null) == UProxy.NO_DEFAULT);
+    
+        val invoker = UProxy.findDefaultInvoker(defaultMethod).get();
+        assertEquals("Hello world!", (Object)invoker.invokeExact((Object)obj, (Object[])null));
+        assertFalse(UProxy.findDefaultInvoker(abstractMethod).isPresent());
+    }
+    
+    public static interface HasNullDefaultMethods {
+        
+        public default void count(AtomicInteger counter) {
+            counter.incrementAndGet();
+        }
+        
+        public default String nothing() {
+            return null;
+        }
+    }
+    
+    @Test
+    public void testTryInvokeDefaultMethod_voidAndNull() throws Throwable {
+        val obj         = UProxy.createDefaultProxy(HasNullDefaultMethods.class);
+        val counter     = new AtomicInteger();
+        val countMethod = HasNullDefaultMethods.class.getDeclaredMethod("count", AtomicInteger.class);
+        val nullMethod  = HasNullDefaultMethods.class.getDeclaredMethod("nothing");
+        assertEquals(null, UProxy.tryInvokeDefaultMethod(obj, countMethod, new Object[] { counter }));
+        assertEquals(1,    counter.get());
+        assertEquals(null, UProxy.tryInvokeDefaultMethod(obj, nullMethod, null));
+    }
+    
+    @Test
+    public void testLightweightNotDefaultMethodException() throws Throwable {
+        val method    = HasNoDefaultMethod.class.getDeclaredMethod("getNoDefaultMessage");
+        val exception = new NotDefaultMethodException(method, false);
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(format(NotDefaultMethodException.DEFAULT_MESSAGE_TEMPLATE, method), exception.getMessage());
+        assertTrue(new NotDefaultMethodException(method).getStackTrace().length != 0);
+    }
+    
     public static interface IGreet {
         public default String greet(String name) {
             return "Hello: " + name;
@@ -104,6 +187,49 @@ public class UProxyTest {
         assertTrue(UProxy.isDefaultInterface(IGreet.class));
     }
     
+    @Test
+    public void testHandlerCalledWithMethodCopies() throws Throwable {
+        val theProxy = createDefaultProxy(IGreet.class);
+        val handler  = java.lang.reflect.Proxy.getInvocationHandler(theProxy);
+        for (int i = 0; i < 100; i++) {
+            // A new copy every time.
+            val method = IGreet.class.getMethod("greet", String.class);
+            assertEquals("Hello: " + i, handler.invoke(theProxy, method, new Object[] { "" + i }));
+        }
+        
+        val dispatch = ProxyDispatch.of(theProxy.getClass());
+        assertTrue("" + dispatch.identityActionCount(), dispatch.identityActionCount() <= 2*dispatch.actions().size());
+    }
+    
+    @Test
+    public void testToStringHashCodeEquals() {
+        val theProxy  = createDefaultProxy(IGreet.class);
+        val theProxy2 = createDefaultProxy(IGreet.class);
+        assertEquals("IGreet@" + theProxy.hashCode(), theProxy.toString());
+        assertTrue(theProxy.toString() == theProxy.toString());
+        assertTrue(theProxy.equals(theProxy));
+        assertFalse(theProxy.equals(theProxy2));
+        assertEquals("Hello: there", theProxy2.greet("there"));
+    }
+    
+    @Test
+    public void testFactoryFor() {
+        val factory = UProxy.factoryFor(IGreet.class, HasDefaultMethod.class);
+        assertTrue(factory == UProxy.factoryFor(IGreet.class, HasDefaultMethod.class));
+        assertEquals(IGreet.class, factory.getInterface());
+        
+        val theProxy  = factory.create();
+        val theProxy2 = factory.create();
+        assertFalse(theProxy == theProxy2);
+        assertEquals("Hello: there", theProxy.greet("there"));
+        assertEquals("Hello world!", ((HasDefaultMethod)theProxy2).getMessage());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testFactoryFor_notInterface() {
+        UProxy.factoryFor(String.class);
+    }
+    
     public static interface IGreet2Super {
         public String greet(String name);
     }
@@ -161,6 +287,104 @@ public class UProxyTest {
         assertFalse(theProxy._equals(theProxy2));
         assertEquals(((WithToStringHashCodeEquals) theProxy)._equals(theProxy), theProxy._equals(theProxy));
         assertEquals(((WithToStringHashCodeEquals) theProxy)._equals(theProxy2), theProxy._equals(theProxy2));
+        assertTrue(theProxy.equals(theProxy));
+        assertFalse(theProxy.equals(theProxy2));
+    }
+    
+    public static interface ICalculator {
+        public default int add(int a, int b) {
+            return a + b;
+        }
+        public default long twice(long a) {
+            return a * 2;
+        }
+        public default double half(double a) {
+            return a / 2;
+        }
+        public default void nothing() {
+        }
+    }
+    
+    @Test
+    public void testCreateDefaultInstance() {
+        val theInstance = UProxy.createDefaultInstance(IGreet.class);
+        assertFalse(java.lang.reflect.Proxy.isProxyClass(theInstance.getClass()));
+        assertEquals("Hello: there", theInstance.greet("there"));
+        assertTrue(theInstance.toString().startsWith("IGreet@"));
+        assertFalse(theInstance.equals(UProxy.createDefaultInstance(IGreet.class)));
+        assertTrue(theInstance.getClass() == UProxy.createDefaultInstance(IGreet.class).getClass());
+        
+        val calculator = UProxy.createDefaultInstance(ICalculator.class);
+        assertEquals(5,    calculator.add(2, 3));
+        assertEquals(42L,  calculator.twice(21L));
+        assertEquals(1.5,  calculator.half(3.0), 0.0);
+        calculator.nothing();
+    }
+    
+    @Test
+    public void testCreateDefaultInstance_implementInSuper() {
+        val theInstance = UProxy.createDefaultInstance(IGreet3Child.class);
+        assertEquals("Hello: world", theInstance.greet("world"));
+        
+        val theInstance2 = UProxy.createDefaultInstance(IGreet2Child.class);
+        assertEquals("Hello: world", theInstance2.greet("world"));
+    }
+    
+    @Test
+    public void testCreateDefaultInstance_withToStringHashCodeEquals() {
+        val theInstance = UProxy.createDefaultInstance(IGreetAll.class);
+        assertEquals(theInstance._toString(), theInstance.toString());
+        assertEquals(theInstance._hashCode(), theInstance.hashCode());
+        assertTrue(theInstance.equals(theInstance));
+        assertFalse(theInstance.equals(UProxy.createDefaultInstance(IGreetAll.class)));
+    }
+    
+    // Package-private -- the generated class must be in the same runtime package to implement it (on all Java versions).
+    static interface IPackageGreet {
+        public default String greet(String name) {
+            return "Hi: " + name;
+        }
+    }
+    
+    @Test
+    public void testCreateDefaultInstance_packagePrivate() {
+        val theInstance = UProxy.createDefaultInstance(IPackageGreet.class);
+        assertFalse(java.lang.reflect.Proxy.isProxyClass(theInstance.getClass()));
+        assertEquals("Hi: there", theInstance.greet("there"));
+    }
+    
+    public static interface IDiamondTop {
+        public default String name() {
+            return "top";
+        }
+    }
+    
+    public static interface IDiamondLeft extends IDiamondTop {
+    }
+    
+    public static interface IDiamondRight extends IDiamondTop {
+        public default String name() {
+            return "right";
+        }
+    }
+    
+    public static interface IDiamond extends IDiamondLeft, IDiamondRight {
+        public String name();
+    }
+    
+    @Test
+    public void testMostSpecificDefault_diamond() throws Throwable {
+        assertTrue(UProxy.isDefaultInterface(IDiamond.class));
+        assertEquals("right", createDefaultProxy(IDiamond.class).name());
+        
+        val proxy = createDefaultProxy(IDiamondLeft.class);
+        assertEquals("top",   proxy.name());
+        assertEquals("right", invokeDefaultMethod(createDefaultProxy(IDiamond.class), IDiamond.class.getMethod("name"), null));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testCreateDefaultInstance_notDefaultInterface() {
+        UProxy.createDefaultInstance(IGreet4Child.class);
     }
     
     public static interface IGreet4Super {
@@ -181,4 +405,137 @@ public class UProxyTest {
                 + "}",
                 UProxy.getNonDefaultMethods(IGreet4Child.class).toString());
     }
+    
+    public static interface IGreet5Middle extends IGreet4Super {
+        public String greet(String name);
+    }
+    
+    public static interface IGreet5Child extends IGreet5Middle {
+        public String greet(String name);
+    }
+    
+    @Test
+    public void testGetNonDefaultMethods_reDeclared() {
+        assertEquals("{"
+                +   "greet([class java.lang.String]): class java.lang.String"
+                +       "=nawaman.utils.reflection.UProxyTest.IGreet4Super"
+                + "}",
+                UProxy.getNonDefaultMethods(IGreet5Child.class).toString());
+    }
+    
+    @Test
+    public void testGetNonDefaultMethods_cached() {
+        val nonDefaults = UProxy.getNonDefaultMethods(IGreet4Child.class);
+        assertTrue(nonDefaults == UProxy.getNonDefaultMethods(IGreet4Child.class));
+        assertTrue(UProxy.getNonDefaultMethods(IGreet3Child.class).isEmpty());
+        try {
+            nonDefaults.clear();
+            fail("Expect the result to be unmodifiable.");
+        } catch (UnsupportedOperationException e) {
+        }
+        assertEquals(1, UProxy.getNonDefaultMethods(IGreet4Child.class).size());
+    }
+    
+    public static interface IntOp {
+        public int apply(ICalculator calculator, int a, int b);
+    }
+    
+    public static interface DoubleOp {
+        public double apply(Object calculator, double a);
+    }
+    
+    public static class OverridingCalculator implements ICalculator {
+        @Override
+        public int add(int a, int b) {
+            return -1;
+        }
+    }
+    
+    @Test
+    public void testDefaultInvoker() throws NoSuchMethodException {
+        val addMethod  = ICalculator.class.getMethod("add", int.class, int.class);
+        val halfMethod = ICalculator.class.getMethod("half", double.class);
+        val add        = UProxy.defaultInvoker(addMethod,  IntOp.class);
+        val half       = UProxy.defaultInvoker(halfMethod, DoubleOp.class);
+        assertTrue(add == UProxy.defaultInvoker(addMethod, IntOp.class));
+        
+        val calculator = new OverridingCalculator();
+        assertEquals(-1,  calculator.add(2, 3));
+        assertEquals(5,   add.apply(calculator, 2, 3));
+        assertEquals(1.5, half.apply(calculator, 3.0), 0.0);
+        assertEquals(5,   add.apply(createDefaultProxy(ICalculator.class), 2, 3));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testDefaultInvoker_mismatch() throws NoSuchMethodException {
+        UProxy.defaultInvoker(ICalculator.class.getMethod("half", double.class), IntOp.class);
+    }
+    
+    @Test(expected=NotDefaultMethodException.class)
+    public void testDefaultInvoker_notDefault() throws NoSuchMethodException {
+        UProxy.defaultInvoker(IGreet4Super.class.getMethod("greet", String.class), IntOp.class);
+    }
+    
+    public static interface AsyncService {
+        
+        public default CompletableFuture<String> fetch(CountDownLatch latch, String name) {
+            latch.countDown();
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return CompletableFuture.completedFuture(name + "@" + Thread.currentThread().getName());
+        }
+        public default CompletionStage<String> fail() {
+            throw new IllegalStateException("failed");
+        }
+        public default Future<Integer> length(String text) {
+            return CompletableFuture.completedFuture(text.length());
+        }
+        public default String threadName() {
+            return Thread.currentThread().getName();
+        }
+    }
+    
+    @Test
+    public void testCreateAsyncDefaultProxy() throws Exception {
+        val executor = Executors.newFixedThreadPool(4, runnable -> new Thread(runnable, "async-test"));
+        try {
+            val service = UProxy.createAsyncDefaultProxy(AsyncService.class, executor);
+            
+            // All four must run in parallel or they will wait for the latch until time out.
+            val latch   = new CountDownLatch(4);
+            val futures = new ArrayList<CompletableFuture<String>>();
+            for (int i = 0; i < 4; i++)
+                futures.add(service.fetch(latch, "F" + i));
+            for (int i = 0; i < 4; i++)
+                assertEquals("F" + i + "@async-test", futures.get(i).get(5, TimeUnit.SECONDS));
+            
+            assertEquals(4, (int)service.length("Test").get(5, TimeUnit.SECONDS));
+            
+            // Non-future method runs on the caller thread.
+            assertEquals(Thread.currentThread().getName(), service.threadName());
+            
+            try {
+                service.fail().toCompletableFuture().get(5, TimeUnit.SECONDS);
+                fail("Expect an exception.");
+            } catch (ExecutionException e) {
+                assertEquals("failed", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testCreateAsyncDefaultProxy_defaultExecutor() throws Exception {
+        val service = UProxy.createAsyncDefaultProxy(AsyncService.class);
+        val latch   = new CountDownLatch(2);
+        val future1 = service.fetch(latch, "A");
+        val future2 = service.fetch(latch, "B");
+        assertTrue(future1.get(5, TimeUnit.SECONDS).startsWith("A@"));
+        assertTrue(future2.get(5, TimeUnit.SECONDS).startsWith("B@"));
+    }
+    
 }
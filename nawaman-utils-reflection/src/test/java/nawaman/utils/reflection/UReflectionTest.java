@@ -1,8 +1,12 @@
 package nawaman.utils.reflection;
 
+import static nawaman.utils.reflection.UReflection.findAnnotationWithName;
+import static nawaman.utils.reflection.UReflection.getFieldsWithAnnotationName;
+import static nawaman.utils.reflection.UReflection.getMethodsWithAnnotationName;
 import static nawaman.utils.reflection.UReflection.getValueFromStaticFieldOrNull;
 import static nawaman.utils.reflection.UReflection.hasAnnotationWithName;
 import static nawaman.utils.reflection.UReflection.invokeStaticMethodOrNull;
+import static nawaman.utils.reflection.UReflection.invokeStaticMethodWithArgumentsOrNull;
 import static nawaman.utils.reflection.UReflection.isPublicStaticFinalAndCompatible;
 
 import java.lang.annotation.Annotation;
@@ -12,11 +16,15 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("javadoc")
@@ -44,6 +52,23 @@ public class UReflectionTest {
         public static String fortyTwo() {
             return "42";
         }
+        
+        public static String concat(String a, String b) {
+            return a + b;
+        }
+        
+        public static int sum(int a, int b, int c, int d) {
+            return a + b + c + d;
+        }
+        
+        public static String fail() {
+            throw new IllegalStateException();
+        }
+        
+        @TestAnnotation
+        public static String annotated() {
+            return "annotated";
+        }
     }
     
     @Test
@@ -52,6 +77,35 @@ public class UReflectionTest {
         assertTrue(hasAnnotationWithName(getAnnotations(TestClass.class, "withAnnotation"), "TestAnnotation"));
     }
     
+    @Test
+    public void testHasAnnotation_element() throws NoSuchFieldException, SecurityException {
+        Field noAnnotation   = TestClass.class.getField("noAnnotation");
+        Field withAnnotation = TestClass.class.getField("withAnnotation");
+        assertFalse(hasAnnotationWithName(noAnnotation,   "TestAnnotation"));
+        assertTrue(hasAnnotationWithName(withAnnotation, "TestAnnotation"));
+        assertTrue(hasAnnotationWithName(withAnnotation, TestAnnotation.class.getName()));
+        assertTrue(hasAnnotationWithName(withAnnotation, TestAnnotation.class.getCanonicalName()));
+        assertFalse(hasAnnotationWithName(withAnnotation, "Other"));
+    }
+    
+    @Test
+    public void testFindAnnotation() throws NoSuchFieldException, SecurityException {
+        Field withAnnotation = TestClass.class.getField("withAnnotation");
+        assertEquals(TestAnnotation.class, findAnnotationWithName(withAnnotation, "TestAnnotation").annotationType());
+        assertNull(findAnnotationWithName(withAnnotation, "Other"));
+    }
+    
+    @Test
+    public void testMembersWithAnnotation() throws NoSuchFieldException, NoSuchMethodException, SecurityException {
+        assertEquals(Arrays.asList(TestClass.class.getField("withAnnotation")),
+                     getFieldsWithAnnotationName(TestClass.class, "TestAnnotation"));
+        assertEquals(Arrays.asList(TestClass.class.getMethod("annotated")),
+                     getMethodsWithAnnotationName(TestClass.class, "TestAnnotation"));
+        assertEquals(Collections.emptyList(), getMethodsWithAnnotationName(TestClass.class, "Other"));
+        assertSame(getFieldsWithAnnotationName(TestClass.class, "TestAnnotation"),
+                   getFieldsWithAnnotationName(TestClass.class, "TestAnnotation"));
+    }
+    
     private Annotation[] getAnnotations(Class<TestClass> theClass, String fieldName) throws NoSuchFieldException {
         return theClass.getField(fieldName).getAnnotations();
     }
@@ -83,4 +137,57 @@ public class UReflectionTest {
         assertEquals("42", invokeStaticMethodOrNull(Test.class, method));
     }
     
+    @Test
+    public void testInvokeStaticMethodOrNull_withArguments() throws NoSuchMethodException, SecurityException {
+        Method concat = TestClass.class.getMethod("concat", String.class, String.class);
+        Method sum    = TestClass.class.getMethod("sum", int.class, int.class, int.class, int.class);
+        assertEquals("4242", invokeStaticMethodOrNull(TestClass.class, concat, "42", "42"));
+        assertEquals(10,     (int)invokeStaticMethodWithArgumentsOrNull(TestClass.class, sum, new Object[] { 1, 2, 3, 4 }));
+        
+        // Mismatch arguments.
+        assertNull(invokeStaticMethodOrNull(TestClass.class, concat, "42"));
+        assertNull(invokeStaticMethodOrNull(TestClass.class, concat, 4, 2));
+        assertNull(invokeStaticMethodWithArgumentsOrNull(TestClass.class, sum, new Object[] { 1, 2, 3, null }));
+    }
+    
+    @Test
+    public void testOrNull_failures() throws NoSuchMethodException, NoSuchFieldException, SecurityException {
+        assertNull(invokeStaticMethodOrNull(TestClass.class, TestClass.class.getMethod("fail")));
+        assertNull(getValueFromStaticFieldOrNull(TestClass.class, TestClass.class.getField("noStatic")));
+        
+        Field noPublic = TestClass.class.getDeclaredField("noPublic");
+        assertNull(getValueFromStaticFieldOrNull(TestClass.class, noPublic));
+        
+        noPublic.setAccessible(true);
+        assertEquals("", getValueFromStaticFieldOrNull(TestClass.class, noPublic));
+    }
+    
+    @Test
+    public void testStaticAccessor_cached() throws NoSuchMethodException, NoSuchFieldException, SecurityException {
+        Field  field  = TestClass.class.getField("compatible");
+        Method method = TestClass.class.getMethod("fortyTwo");
+        assertSame(StaticAccessor.of(field),  StaticAccessor.of(TestClass.class.getField("compatible")));
+        assertSame(StaticAccessor.of(method), StaticAccessor.of(TestClass.class.getMethod("fortyTwo")));
+        assertEquals("42", StaticAccessor.of(field).get());
+        assertEquals("42", StaticAccessor.of(method).get());
+    }
+    
+    @Test
+    public void testStaticAccessor_accessibleCopyDoesNotLendAccess() throws NoSuchFieldException, SecurityException {
+        Field accessible = TestClass.class.getDeclaredField("noPublic");
+        accessible.setAccessible(true);
+        assertEquals("", getValueFromStaticFieldOrNull(TestClass.class, accessible));
+        
+        // The same field but not made accessible.
+        assertNull(getValueFromStaticFieldOrNull(TestClass.class, TestClass.class.getDeclaredField("noPublic")));
+    }
+    
+    @Test
+    public void testStaticAccessor_failureIsCached() throws NoSuchFieldException, SecurityException {
+        Field noStatic = TestClass.class.getField("noStatic");
+        noStatic.setAccessible(true);
+        assertNull(StaticAccessor.of(noStatic).get());
+        assertSame(StaticAccessor.of(noStatic), StaticAccessor.of(noStatic));
+    }
+    
 }